@@ -0,0 +1,86 @@
+package com.gabor.upvote.bench;
+
+import com.gabor.upvote.config.CachingAuthenticationProvider;
+import com.gabor.upvote.service.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autentikáció: UserDetails betöltése, nyers BCrypt ellenőrzés és a teljes Basic Auth provider.
+ * A cache-ek a "cache" paraméterrel kapcsolhatók ki, így a cache nélküli költség is mérhető.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AuthBenchmark {
+
+    private static final String USERNAME_PREFIX = "bench-user-";
+    private static final String PASSWORD = "bench-password";
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private CustomUserDetailsService userDetailsService;
+    private CachingAuthenticationProvider authenticationProvider;
+    private PasswordEncoder passwordEncoder;
+    private String passwordHash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("auth", Map.of(
+                "upvote.auth.credential-cache.enabled", cache,
+                "upvote.auth.user-details-cache.enabled", cache));
+        userDetailsService = context.getBean(CustomUserDetailsService.class);
+        authenticationProvider = context.getBean(CachingAuthenticationProvider.class);
+        passwordEncoder = context.getBean(PasswordEncoder.class);
+        passwordHash = passwordEncoder.encode(PASSWORD);
+        new DatasetGenerator(context.getBean(JdbcTemplate.class), 42).users(users, USERNAME_PREFIX, passwordHash);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public boolean passwordMatches() {
+        return passwordEncoder.matches(PASSWORD, passwordHash);
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        return authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(randomUsername(), PASSWORD));
+    }
+
+    private String randomUsername() {
+        return USERNAME_PREFIX + ThreadLocalRandom.current().nextInt(users);
+    }
+}
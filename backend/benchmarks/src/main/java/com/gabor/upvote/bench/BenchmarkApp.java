@@ -0,0 +1,44 @@
+package com.gabor.upvote.bench;
+
+import com.gabor.upvote.UpvoteApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Az alkalmazás indítása a benchmarkokhoz: in-memory H2 (PostgreSQL módban), csendes logolás.
+ */
+final class BenchmarkApp {
+
+    private BenchmarkApp() {
+    }
+
+    static ConfigurableApplicationContext start(String database, Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        defaults.put("spring.jpa.properties.hibernate.format_sql", "false");
+        defaults.put("server.port", "0");
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("logging.level.com.gabor.upvote", "WARN");
+        defaults.put("logging.level.org.springframework.security", "WARN");
+        defaults.put("logging.level.org.hibernate.SQL", "WARN");
+        defaults.putAll(properties);
+
+        // Parancssori argumentumként adjuk át, hogy az application.yml értékeit felülírják
+        String[] args = defaults.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(UpvoteApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args);
+    }
+}
@@ -0,0 +1,88 @@
+package com.gabor.upvote.bench;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A benchmarkok futtatása szálszám-sorozattal (1, 2, 4, ... N), az összes eredmény egyetlen JSON fájlba kerül,
+ * így két kiadás eredménye közvetlenül összevethető.
+ *
+ * <p>A szokásos JMH kapcsolók használhatók (pl. {@code -p ideas=1000000 VoteBenchmark}); a {@code -t} kapcsoló
+ * egyetlen szálszámra szűkít. A szálszámokat a {@code bench.threads} (pl. {@code 1,4,16}), a kimeneti fájlt a
+ * {@code bench.result} rendszerváltozó állítja.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        File result = new File(System.getProperty("bench.result", "target/jmh-result.json"));
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : threadCounts(cli)) {
+            ChainedOptionsBuilder options = new OptionsBuilder().parent(cli).threads(threads);
+            if (cli.getIncludes().isEmpty()) {
+                options.include(BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+            }
+            // Rövidebb alapértékek; a parancssor felülírja őket
+            if (!cli.getForkCount().hasValue()) {
+                options.forks(1);
+            }
+            if (!cli.getWarmupIterations().hasValue()) {
+                options.warmupIterations(3);
+            }
+            if (!cli.getWarmupTime().hasValue()) {
+                options.warmupTime(TimeValue.seconds(5));
+            }
+            if (!cli.getMeasurementIterations().hasValue()) {
+                options.measurementIterations(5);
+            }
+            if (!cli.getMeasurementTime().hasValue()) {
+                options.measurementTime(TimeValue.seconds(5));
+            }
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        File parent = result.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + parent);
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, result.getPath()).writeOut(results);
+        System.out.println("JMH eredmények: " + result.getAbsolutePath());
+    }
+
+    private static int[] threadCounts(CommandLineOptions cli) {
+        if (cli.getThreads().hasValue()) {
+            return new int[]{cli.getThreads().get()};
+        }
+        String configured = System.getProperty("bench.threads");
+        if (configured != null && !configured.isBlank()) {
+            return Arrays.stream(configured.split(","))
+                    .map(String::trim)
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+        }
+        int max = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < max; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(max);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,108 @@
+package com.gabor.upvote.bench;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Reprodukálható adathalmazok (ötletek, szavazatok, felhasználók) JDBC batch insertekkel.
+ */
+final class DatasetGenerator {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final SplittableRandom random;
+
+    DatasetGenerator(JdbcTemplate jdbc, long seed) {
+        this.jdbc = jdbc;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Ötletek és szavazatok generálása. A szavazatok ferde eloszlásúak (kevés népszerű ötlet),
+     * az ideas.votes oszlop megegyezik a vote_records sorok számával.
+     *
+     * @return a jóváhagyott ötletek azonosítói
+     */
+    long[] ideasWithVotes(int ideas, int votes, double approvedRatio) {
+        int approvedCount = Math.max(1, (int) (ideas * approvedRatio));
+        int[] counts = new int[approvedCount];
+        int[] votedIdea = new int[votes];
+        for (int i = 0; i < votes; i++) {
+            // Kb. Zipf-szerű: a kis indexek sokkal gyakoribbak
+            int index = (int) (approvedCount * Math.pow(random.nextDouble(), 3));
+            votedIdea[i] = index;
+            counts[index]++;
+        }
+
+        Instant start = Instant.now().minus(365, ChronoUnit.DAYS);
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < ideas; i++) {
+            boolean approved = i < approvedCount;
+            Instant createdAt = start.plusSeconds(random.nextLong(365L * 24 * 3600));
+            rows.add(new Object[]{"Ötlet #" + i, "Generált leírás a(z) " + i + ". ötlethez",
+                    approved, approved ? counts[i] : 0, Timestamp.from(createdAt)});
+            if (rows.size() == BATCH_SIZE) {
+                insertIdeas(rows);
+            }
+        }
+        insertIdeas(rows);
+
+        long[] approvedIds = jdbc.queryForList("select id from ideas where approved = true order by id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+
+        for (int i = 0; i < votes; i++) {
+            long ideaId = approvedIds[votedIdea[i]];
+            Timestamp votedAt = Timestamp.from(start.plusSeconds(random.nextLong(365L * 24 * 3600)));
+            rows.add(new Object[]{ideaId, "seed-voter-" + i, "seed", votedAt});
+            if (rows.size() == BATCH_SIZE) {
+                insertVotes(rows);
+            }
+        }
+        insertVotes(rows);
+        return approvedIds;
+    }
+
+    /**
+     * Felhasználók generálása közös, előre kiszámolt jelszó hash-sel (a BCrypt költség így nem a setupot terheli).
+     */
+    void users(int users, String usernamePrefix, String passwordHash) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < users; i++) {
+            String username = usernamePrefix + i;
+            rows.add(new Object[]{username, passwordHash, username + "@bench.local", true, now});
+            if (rows.size() == BATCH_SIZE) {
+                flush("insert into users (username, password, email, enabled, created_at) values (?, ?, ?, ?, ?)", rows);
+            }
+        }
+        flush("insert into users (username, password, email, enabled, created_at) values (?, ?, ?, ?, ?)", rows);
+        jdbc.update("insert into user_roles (user_id, role) select id, 'ROLE_USER' from users where username like ?",
+                usernamePrefix + "%");
+    }
+
+    private void insertIdeas(List<Object[]> rows) {
+        flush("insert into ideas (title, description, approved, votes, created_at) values (?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insertVotes(List<Object[]> rows) {
+        List<Object[]> guards = rows.stream()
+                .map(row -> new Object[]{row[1], row[0], row[3]})
+                .toList();
+        flush("insert into vote_records (idea_id, username, session_id, voted_at) values (?, ?, ?, ?)", rows);
+        flush("insert into vote_guards (username, idea_id, voted_at) values (?, ?, ?)", new ArrayList<>(guards));
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
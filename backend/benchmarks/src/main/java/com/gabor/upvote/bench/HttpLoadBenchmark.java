@@ -0,0 +1,114 @@
+package com.gabor.upvote.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teljes HTTP kérések (Tomcat + Security + JDBC) platform és virtuális szálas kiszolgálással.
+ * Minden JMH szál egy kliens, a nagy párhuzamosság a szálszámmal állítható, pl. -Dbench.threads=256,1024,2048.
+ * A virtuális szálas mód Java 21+ JVM-en fut.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class HttpLoadBenchmark {
+
+    private static final String USERNAME_PREFIX = "load-user-";
+    private static final String PASSWORD = "load-password";
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000"})
+    public int ideas;
+
+    // Minden szavazás új felhasználóval történik, ennyi áll rendelkezésre
+    @Param({"100000"})
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI base;
+    private long[] approvedIds;
+    private final AtomicLong voters = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need a Java 21+ JVM, running on " + Runtime.version());
+        }
+        context = BenchmarkApp.start("http-load", Map.of("spring.threads.virtual.enabled", virtual));
+        PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+        DatasetGenerator generator = new DatasetGenerator(context.getBean(JdbcTemplate.class), 42);
+        approvedIds = generator.ideasWithVotes(ideas, ideas, 0.5);
+        generator.users(users, USERNAME_PREFIX, passwordEncoder.encode(PASSWORD));
+
+        base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // A DataLoader tesztfelhasználója: a hitelesítés a cache-ből jön, a kérés költsége a listázás
+    @Benchmark
+    public int listIdeas() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(base.resolve("/api/ideas"))
+                .header("Authorization", basic("testuser", "test123"))
+                .GET());
+    }
+
+    // Új felhasználó: BCrypt ellenőrzés + a teljes szavazási tranzakció
+    @Benchmark
+    public int vote() throws IOException, InterruptedException {
+        long ideaId = approvedIds[ThreadLocalRandom.current().nextInt(approvedIds.length)];
+        String username = USERNAME_PREFIX + (voters.getAndIncrement() % users);
+        return send(HttpRequest.newBuilder(base.resolve("/api/ideas/" + ideaId + "/vote"))
+                .header("Authorization", basic(username, PASSWORD))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        // 409: elfogytak az új felhasználók (a kérés ettől még teljes körben lefutott)
+        if (response.statusCode() >= 400 && response.statusCode() != 409) {
+            throw new IllegalStateException("Unexpected HTTP status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private static String basic(String username, String password) {
+        String token = username + ":" + password;
+        return "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.gabor.upvote.bench;
+
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.service.IdeaLeaderboard;
+import com.gabor.upvote.service.IdeaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A teljes listázó végpontok költsége (jóváhagyott és függő ötletek), opcionálisan a memóriabeli ranglistával.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int ideas;
+
+    @Param({"false", "true"})
+    public boolean leaderboard;
+
+    private ConfigurableApplicationContext context;
+    private IdeaService ideaService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("listing", Map.of("upvote.leaderboard.enabled", leaderboard));
+        // A ranglista induláskor épül fel, a JDBC-vel betöltött adatok után újra kell építeni
+        new DatasetGenerator(context.getBean(JdbcTemplate.class), 42).ideasWithVotes(ideas, ideas, 0.5);
+        if (leaderboard) {
+            context.getBean(IdeaLeaderboard.class).rebuild();
+        }
+        ideaService = context.getBean(IdeaService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<IdeaSummary> listApprovedIdeas() {
+        return ideaService.listApprovedIdeas();
+    }
+
+    @Benchmark
+    public List<IdeaSummary> listPendingIdeas() {
+        return ideaService.listPendingIdeas();
+    }
+}
@@ -0,0 +1,107 @@
+package com.gabor.upvote.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.gabor.upvote.dto.IdeaSummary;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GET /api/ideas válaszának sorosítása és visszaolvasása JSON, CBOR és Smile formátumban.
+ * Az adatbázist nem érinti; a payload mérete a {@code payloadBytes} másodlagos eredményként kerül a JSON-ba.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PayloadFormatBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int ideas;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private List<IdeaSummary> board;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Ugyanaz a konfiguráció, mint az alkalmazás message convertereiben
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory());
+            case "smile" -> builder.factory(new SmileFactory());
+            default -> { }
+        }
+        mapper = builder.build();
+
+        Random random = new Random(42);
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        board = new ArrayList<>(ideas);
+        for (int i = 0; i < ideas; i++) {
+            board.add(new IdeaSummary((long) i + 1, "Idea " + i + " " + "x".repeat(10 + random.nextInt(50)),
+                    random.nextInt(10_000), start.plusSeconds(random.nextInt(30_000_000))));
+        }
+        payload = mapper.writeValueAsBytes(board);
+    }
+
+    /**
+     * A payload mérete bájtban. A JMH iterációnként nullázza, majd a szálak, a mérési iterációk és a forkok között
+     * összeadja az EVENTS számlálót: ezért a mérés közben állítjuk (nem növeljük), csak az első szál jelenti, és
+     * az iterációk és forkok számával osztva, így az eredmény score-ja a tényleges méret.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PayloadSize {
+
+        public double payloadBytes;
+
+        private int share;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkParams benchmark, ThreadParams threads) {
+            share = threads.getThreadIndex() == 0
+                    ? benchmark.getMeasurement().getCount() * Math.max(benchmark.getForks(), 1) : 0;
+        }
+
+        void report(int bytes) {
+            if (share > 0) {
+                payloadBytes = (double) bytes / share;
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] serialise(PayloadSize size) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(board);
+        size.report(bytes.length);
+        return bytes;
+    }
+
+    @Benchmark
+    public JsonNode deserialise(PayloadSize size) throws IOException {
+        size.report(payload.length);
+        return mapper.readTree(payload);
+    }
+}
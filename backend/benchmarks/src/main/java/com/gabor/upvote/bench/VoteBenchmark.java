@@ -0,0 +1,64 @@
+package com.gabor.upvote.bench;
+
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.service.IdeaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdeaService.vote: minden hívás egy új felhasználó szavazata egy véletlen jóváhagyott ötletre.
+ * A szálszámot a BenchmarkRunner (vagy a -t kapcsoló) állítja.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class VoteBenchmark {
+
+    @Param({"sync", "atomic", "write-behind", "striped"})
+    public String mode;
+
+    @Param({"10000", "100000", "1000000"})
+    public int ideas;
+
+    @Param({"10000", "100000", "1000000"})
+    public int votes;
+
+    private ConfigurableApplicationContext context;
+    private IdeaService ideaService;
+    private long[] approvedIds;
+    private final AtomicLong voters = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("vote", Map.of("upvote.votes.mode", mode));
+        ideaService = context.getBean(IdeaService.class);
+        approvedIds = new DatasetGenerator(context.getBean(JdbcTemplate.class), 42)
+                .ideasWithVotes(ideas, votes, 0.5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Idea vote() {
+        long ideaId = approvedIds[ThreadLocalRandom.current().nextInt(approvedIds.length)];
+        return ideaService.vote(ideaId, "bench-voter-" + voters.incrementAndGet(), "bench");
+    }
+}
@@ -0,0 +1,71 @@
+package com.gabor.upvote.bench;
+
+import com.gabor.upvote.dto.VoteTicket;
+import com.gabor.upvote.service.VotePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aszinkron szavazás (upvote.votes.mode=async), a VoteBenchmark párja. Tele sornál a hívás addig
+ * próbálkozik, amíg a fogyasztó helyet nem csinál, így tartós terhelésnél a mért érték a kötegelt
+ * kiírás áteresztőképessége, nem csak a sorba tételé.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class VotePipelineBenchmark {
+
+    @Param({"10000", "100000"})
+    public int ideas;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private VotePipeline pipeline;
+    private long[] approvedIds;
+    private final AtomicLong voters = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start("vote-pipeline", Map.of(
+                "upvote.votes.mode", "async",
+                "upvote.votes.async.queue-capacity", "10000",
+                "upvote.votes.async.batch-size", Integer.toString(batchSize)));
+        pipeline = context.getBean(VotePipeline.class);
+        approvedIds = new DatasetGenerator(context.getBean(JdbcTemplate.class), 42)
+                .ideasWithVotes(ideas, 0, 0.5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public VoteTicket vote() {
+        long ideaId = approvedIds[ThreadLocalRandom.current().nextInt(approvedIds.length)];
+        String username = "bench-voter-" + voters.incrementAndGet();
+        Optional<VoteTicket> ticket;
+        while ((ticket = pipeline.submit(ideaId, username, "bench")).isEmpty()) {
+            Thread.onSpinWait();
+        }
+        return ticket.get();
+    }
+}
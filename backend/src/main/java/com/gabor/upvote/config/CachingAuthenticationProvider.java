@@ -0,0 +1,100 @@
+package com.gabor.upvote.config;
+
+import com.gabor.upvote.service.UserChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * A sikeres HTTP Basic hitelesítéseket rövid ideig megjegyzi, így egy ismételt kérés nem fut
+ * újra BCrypt-en és user lekérdezésen. A kulcs a felhasználónév+jelszó HMAC-je egy induláskor
+ * generált titkos kulccsal - a jelszó maga sehol nem tárolódik. Sikertelen próbálkozást nem
+ * cache-elünk, azok mindig a delegate-hez mennek.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final boolean enabled;
+    private final Cache<String, Authentication> verified;
+    private final SecretKey key;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, UpvoteProperties.CacheSettings settings) {
+        this.delegate = delegate;
+        this.enabled = settings.isEnabled();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfterWrite(settings.getTtl())
+                .build();
+        try {
+            this.key = KeyGenerator.getInstance(HMAC).generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!enabled || !(authentication.getCredentials() instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        String cacheKey = cacheKey(authentication.getName(), password);
+        Authentication cached = verified.getIfPresent(cacheKey);
+        if (cached != null) {
+            // Új token, hogy a kérésenkénti details (IP, session) ne keveredjen
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                    cached.getPrincipal(), null, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            verified.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getUsername());
+    }
+
+    public void evict(String username) {
+        verified.asMap().values().removeIf(auth -> auth.getName().equals(username));
+    }
+
+    public long size() {
+        return verified.estimatedSize();
+    }
+
+    private String cacheKey(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not compute credential cache key", e);
+        }
+    }
+}
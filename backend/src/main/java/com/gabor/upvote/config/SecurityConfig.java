@@ -1,10 +1,12 @@
 package com.gabor.upvote.config;
 
 import com.gabor.upvote.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -23,19 +25,29 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public CachingAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder,
+                                                                UpvoteProperties properties) {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(passwordEncoder);
+        daoProvider.setUserDetailsService(userDetailsService);
+        return new CachingAuthenticationProvider(daoProvider, properties.getAuth().getCredentialCache());
+    }
+
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           CachingAuthenticationProvider authenticationProvider) throws Exception {
         http
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
                         .requestMatchers("/h2-console/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/ideas/**").hasRole("ADMIN")
-                        .requestMatchers("/api/ideas/pending", "/api/ideas/*/approve").hasRole("ADMIN")
+                        .requestMatchers("/api/ideas/pending", "/api/ideas/pending/**", "/api/ideas/*/approve", "/api/ideas/batch/**").hasRole("ADMIN")
                         .requestMatchers("/api/ideas/**", "/api/auth/me").hasAnyRole("USER", "ADMIN")
                         .anyRequest().authenticated()
                 )
@@ -46,7 +58,7 @@ public class SecurityConfig {
                             response.getWriter().write("{\"error\": \"Unauthorized\", \"message\": \"Invalid credentials\"}");
                         })
                 )
-                .userDetailsService(userDetailsService)
+                .authenticationProvider(authenticationProvider)
                 .logout(logout -> logout.permitAll())
                 .csrf(csrf -> csrf.ignoringRequestMatchers("/h2-console/**", "/api/**"))
                 .headers(headers -> headers.frameOptions(frame -> frame.disable()));
@@ -0,0 +1,402 @@
+package com.gabor.upvote.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "upvote")
+public class UpvoteProperties {
+
+    private final Votes votes = new Votes();
+
+    private final Leaderboard leaderboard = new Leaderboard();
+
+    private final Auth auth = new Auth();
+
+    private final Stream stream = new Stream();
+
+    private final Listing listing = new Listing();
+
+    private final Trending trending = new Trending();
+
+    private final Rollups rollups = new Rollups();
+
+    private final Reconciliation reconciliation = new Reconciliation();
+
+    public Votes getVotes() { return votes; }
+
+    public Leaderboard getLeaderboard() { return leaderboard; }
+
+    public Auth getAuth() { return auth; }
+
+    public Stream getStream() { return stream; }
+
+    public Listing getListing() { return listing; }
+
+    public Trending getTrending() { return trending; }
+
+    public Rollups getRollups() { return rollups; }
+
+    public Reconciliation getReconciliation() { return reconciliation; }
+
+    public static class Votes {
+
+        private VoteMode mode = VoteMode.SYNC;
+
+        private final WriteBehind writeBehind = new WriteBehind();
+
+        private final Async async = new Async();
+
+        private final Journal journal = new Journal();
+
+        private final Striped striped = new Striped();
+
+        private final Partitioning partitioning = new Partitioning();
+
+        public VoteMode getMode() { return mode; }
+        public void setMode(VoteMode mode) { this.mode = mode; }
+
+        public WriteBehind getWriteBehind() { return writeBehind; }
+
+        public Async getAsync() { return async; }
+
+        public Journal getJournal() { return journal; }
+
+        public Striped getStriped() { return striped; }
+
+        public Partitioning getPartitioning() { return partitioning; }
+    }
+
+    public static class Partitioning {
+
+        public enum Archive {
+            // A lecsatolt partíció önálló táblaként megmarad (mentés, áthelyezés után kézzel törölhető)
+            DETACH,
+            DROP
+        }
+
+        // true: a vote_records voted_at szerint havonta particionált tábla (csak PostgreSQL)
+        private boolean enabled = false;
+
+        // Ennyi jövőbeli hónap partíciója készül el előre
+        private int ahead = 3;
+
+        // Ennyi lezárt hónap marad a táblában, a régebbiek lecsatolódnak; 0 = mind megmarad
+        private int retentionMonths = 0;
+
+        private Archive archive = Archive.DETACH;
+
+        // Partíciók előre létrehozása és a lejártak lecsatolása ennyi időnként
+        private Duration interval = Duration.ofHours(1);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getAhead() { return ahead; }
+        public void setAhead(int ahead) { this.ahead = ahead; }
+
+        public int getRetentionMonths() { return retentionMonths; }
+        public void setRetentionMonths(int retentionMonths) { this.retentionMonths = retentionMonths; }
+
+        public Archive getArchive() { return archive; }
+        public void setArchive(Archive archive) { this.archive = archive; }
+
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+    }
+
+    public static class Striped {
+
+        // Ötletenként ennyi számláló sor; nagyjából az egy ötletre egyszerre szavazók száma fölé érdemes
+        private int slots = 16;
+
+        // Több node esetén elég, ha egy példányon fut, de párhuzamosan is helyes
+        private boolean fold = true;
+
+        // Legfeljebb ennyit késik a listázások rendezése a valódi számokhoz képest
+        private Duration foldInterval = Duration.ofSeconds(1);
+
+        public int getSlots() { return slots; }
+        public void setSlots(int slots) { this.slots = slots; }
+
+        public boolean isFold() { return fold; }
+        public void setFold(boolean fold) { this.fold = fold; }
+
+        public Duration getFoldInterval() { return foldInterval; }
+        public void setFoldInterval(Duration foldInterval) { this.foldInterval = foldInterval; }
+    }
+
+    public static class Async {
+
+        // Tele sor esetén a vote végpont 503-at ad
+        private int queueCapacity = 100_000;
+
+        // Egy tranzakcióban legfeljebb ennyi szavazat
+        private int batchSize = 1000;
+
+        // Ennyi ideig kérdezhető le egy ticket állapota
+        private Duration ticketTtl = Duration.ofMinutes(10);
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public Duration getTicketTtl() { return ticketTtl; }
+        public void setTicketTtl(Duration ticketTtl) { this.ticketTtl = ticketTtl; }
+    }
+
+    public static class WriteBehind {
+
+        // Legfeljebb ennyi idő telik el két flush között
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        // Ennyi függő szavazat után azonnal flush-olunk
+        private long flushThreshold = 1000;
+
+        // Ide kerülnek a le nem írt delták, ha leálláskor nem érhető el az adatbázis; ez az egyetlen példányuk,
+        // ezért a journalhoz hasonlóan tartós könyvtárban van
+        private Path spillFile = Path.of("data", "vote-counters.spill");
+
+        public Duration getFlushInterval() { return flushInterval; }
+        public void setFlushInterval(Duration flushInterval) { this.flushInterval = flushInterval; }
+
+        public long getFlushThreshold() { return flushThreshold; }
+        public void setFlushThreshold(long flushThreshold) { this.flushThreshold = flushThreshold; }
+
+        public Path getSpillFile() { return spillFile; }
+        public void setSpillFile(Path spillFile) { this.spillFile = spillFile; }
+    }
+
+    public static class Journal {
+
+        // Async módban a szavazat csak lemezre írás után kap 202-t (összeomlás után visszajátszva)
+        private boolean enabled = true;
+
+        // Tartós könyvtár kell (nem tmpdir): a még ki nem írt szavazatok csak itt vannak meg
+        private Path directory = Path.of("data", "vote-journal");
+
+        // Ennyi időnként egy fsync az addig érkezett összes szavazatra; ennyivel nő a 202 késleltetése
+        private Duration syncInterval = Duration.ofMillis(5);
+
+        // E méret fölött új szegmens kezdődik; a régi a benne lévő szavazatok kiírása után törlődik
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Path getDirectory() { return directory; }
+        public void setDirectory(Path directory) { this.directory = directory; }
+
+        public Duration getSyncInterval() { return syncInterval; }
+        public void setSyncInterval(Duration syncInterval) { this.syncInterval = syncInterval; }
+
+        public DataSize getSegmentSize() { return segmentSize; }
+        public void setSegmentSize(DataSize segmentSize) { this.segmentSize = segmentSize; }
+    }
+
+    public static class Leaderboard {
+
+        // Csak egy példányos futtatásnál kapcsoljuk be: a lista a helyi eseményekből frissül
+        private boolean enabled = false;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    }
+
+    public static class Auth {
+
+        // Sikeres Basic Auth ellenőrzések (BCrypt megspórolása)
+        private final CacheSettings credentialCache = new CacheSettings(Duration.ofSeconds(60), 10_000);
+
+        // UserDetails snapshotok a users + user_roles lekérdezés helyett
+        private final CacheSettings userDetailsCache = new CacheSettings(Duration.ofMinutes(5), 10_000);
+
+        public CacheSettings getCredentialCache() { return credentialCache; }
+
+        public CacheSettings getUserDetailsCache() { return userDetailsCache; }
+    }
+
+    public static class Listing {
+
+        // ETag / If-None-Match a listázásokra. A verzió a helyi eseményekből nő, ezért csak egy
+        // példányos futtatásnál kapcsoljuk be (más node módosításai nem avatnák érvénytelenné)
+        private boolean etag = false;
+
+        // A jóváhagyott lista JSON (és gzip) bájtjai verziónként egyszer készülnek el; ugyanaz a feltétel
+        private boolean responseCache = false;
+
+        public boolean isEtag() { return etag; }
+        public void setEtag(boolean etag) { this.etag = etag; }
+
+        public boolean isResponseCache() { return responseCache; }
+        public void setResponseCache(boolean responseCache) { this.responseCache = responseCache; }
+    }
+
+    public static class Trending {
+
+        // A GET /api/ideas/trending memóriából szolgál ki; több példánynál node-onként csak a helyi szavazatokat látja
+        private boolean enabled = true;
+
+        // Ennyi idő alatt feleződik egy szavazat súlya
+        private Duration halfLife = Duration.ofHours(6);
+
+        // Induláskor csak az ennél frissebb szavazatokat olvassuk be
+        private Duration horizon = Duration.ofDays(7);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Duration getHalfLife() { return halfLife; }
+        public void setHalfLife(Duration halfLife) { this.halfLife = halfLife; }
+
+        public Duration getHorizon() { return horizon; }
+        public void setHorizon(Duration horizon) { this.horizon = horizon; }
+    }
+
+    public static class Rollups {
+
+        // A vote_records új sorainak aggregálása a perces / órás / napos rollup táblákba
+        private boolean enabled = true;
+
+        private Duration interval = Duration.ofSeconds(5);
+
+        // Csak az ennyi ideje már látott id-kig haladunk: a korábban kiosztott, de még nem commitolt
+        // szavazatok addigra láthatóvá válnak, így a watermark nem ugorhat át rajtuk
+        private Duration settle = Duration.ofSeconds(10);
+
+        // Egy tranzakcióban ennyi vote_records sor
+        private int batchSize = 5000;
+
+        // A watermark által átlépett, még nem látott id-ket ennyi ideig keressük újra (a settle-nél
+        // tovább commitoló tranzakciók); a visszagörgetett tranzakciók id-jei sosem jelennek meg
+        private Duration gapTimeout = Duration.ofMinutes(10);
+
+        // A perces és órás szeletek ennyi ideig maradnak meg (a naposak korlátlanul)
+        private Duration minuteRetention = Duration.ofDays(2);
+
+        private Duration hourRetention = Duration.ofDays(90);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+
+        public Duration getSettle() { return settle; }
+        public void setSettle(Duration settle) { this.settle = settle; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public Duration getGapTimeout() { return gapTimeout; }
+        public void setGapTimeout(Duration gapTimeout) { this.gapTimeout = gapTimeout; }
+
+        public Duration getMinuteRetention() { return minuteRetention; }
+        public void setMinuteRetention(Duration minuteRetention) { this.minuteRetention = minuteRetention; }
+
+        public Duration getHourRetention() { return hourRetention; }
+        public void setHourRetention(Duration hourRetention) { this.hourRetention = hourRetention; }
+    }
+
+    public static class Reconciliation {
+
+        // Időzített futás; admin végpontról (POST /api/admin/reconciliation) ettől függetlenül indítható
+        private boolean scheduled = true;
+
+        private Duration interval = Duration.ofHours(24);
+
+        // Egy lépés ennyi egymást követő ötlet id-t vizsgál egyetlen csoportosított lekérdezéssel
+        private int chunkSize = 1000;
+
+        // Ennyi lépés fut párhuzamosan (ennyi adatbázis kapcsolatot foglal)
+        private int parallelism = 4;
+
+        // false: csak jelent, nem javít
+        private boolean repair = true;
+
+        public boolean isScheduled() { return scheduled; }
+        public void setScheduled(boolean scheduled) { this.scheduled = scheduled; }
+
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+
+        public int getChunkSize() { return chunkSize; }
+        public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+        public boolean isRepair() { return repair; }
+        public void setRepair(boolean repair) { this.repair = repair; }
+    }
+
+    public static class Stream {
+
+        // Egy ötlet változásai ennyi időnként, összevonva mennek ki
+        private Duration tick = Duration.ofMillis(250);
+
+        // Változás hiányában ennyi időnként üres komment, hogy a halott kapcsolatok kiessenek
+        private Duration heartbeat = Duration.ofSeconds(15);
+
+        // Ezután a kliens (EventSource) újracsatlakozik
+        private Duration timeout = Duration.ofMinutes(30);
+
+        private int maxSubscribers = 50_000;
+
+        // A küldés ennyi szálon fut; egy beakadt írású kliens a lezárásáig egy szálat foglal
+        private int senderThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        // Ennyi ki nem küldött esemény után a lassú klienst lezárjuk (az EventSource újracsatlakozik)
+        private int sendQueue = 16;
+
+        public Duration getTick() { return tick; }
+        public void setTick(Duration tick) { this.tick = tick; }
+
+        public Duration getHeartbeat() { return heartbeat; }
+        public void setHeartbeat(Duration heartbeat) { this.heartbeat = heartbeat; }
+
+        public Duration getTimeout() { return timeout; }
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+        public int getMaxSubscribers() { return maxSubscribers; }
+        public void setMaxSubscribers(int maxSubscribers) { this.maxSubscribers = maxSubscribers; }
+
+        public int getSenderThreads() { return senderThreads; }
+        public void setSenderThreads(int senderThreads) { this.senderThreads = senderThreads; }
+
+        public int getSendQueue() { return sendQueue; }
+        public void setSendQueue(int sendQueue) { this.sendQueue = sendQueue; }
+    }
+
+    public static class CacheSettings {
+
+        private boolean enabled = true;
+
+        // Eseményre azonnal ürül; a TTL csak a felső korlát, ha egy változás eseménye elmaradna
+        private Duration ttl;
+
+        private long maxSize;
+
+        public CacheSettings() {
+            this(Duration.ofSeconds(60), 10_000);
+        }
+
+        public CacheSettings(Duration ttl, long maxSize) {
+            this.ttl = ttl;
+            this.maxSize = maxSize;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+    }
+}
@@ -0,0 +1,49 @@
+package com.gabor.upvote.config;
+
+import com.gabor.upvote.repository.StartupTaskRepository;
+import com.gabor.upvote.repository.VoteGuardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * A vote_guards tábla előtt leadott szavazatok is kapjanak guard sort. A web szerver és a háttérfolyamatok
+ * (SmartLifecycle) indulása előtt fut, különben addig egy régi szavazó atomic / striped / async módban újra
+ * szavazhatna. Sikeres futás után a startup_tasks sor miatt a további indulásokon kimarad.
+ */
+@Component
+public class VoteGuardBackfill implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteGuardBackfill.class);
+
+    static final String TASK = "vote-guard-backfill";
+
+    private final VoteGuardRepository voteGuardRepository;
+    private final StartupTaskRepository startupTaskRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public VoteGuardBackfill(VoteGuardRepository voteGuardRepository,
+                             StartupTaskRepository startupTaskRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.voteGuardRepository = voteGuardRepository;
+        this.startupTaskRepository = startupTaskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (startupTaskRepository.existsById(TASK)) {
+                return;
+            }
+            int added = voteGuardRepository.backfillFromVoteRecords();
+            startupTaskRepository.markCompleted(TASK, Instant.now());
+            log.info("Backfilled {} vote guards from vote_records", added);
+        });
+    }
+}
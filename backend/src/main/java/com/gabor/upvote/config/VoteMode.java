@@ -0,0 +1,33 @@
+package com.gabor.upvote.config;
+
+/**
+ * Hogyan kerül a szavazat az ideas.votes számlálóba.
+ */
+public enum VoteMode {
+
+    /** Eredeti működés: read-modify-write az Idea entitáson, egy tranzakcióban. */
+    SYNC,
+
+    /** A VoteRecord azonnal mentődik, a számláló növelését a VoteCounterBuffer gyűjti és flush-olja. */
+    WRITE_BEHIND,
+
+    /**
+     * Ütközés alapú duplikátum-szűrés (vote_guards, ON CONFLICT DO NOTHING) és atomikus
+     * "votes = votes + 1" UPDATE; a részletes hibaüzenethez csak hiba esetén olvasunk.
+     */
+    ATOMIC,
+
+    /**
+     * A vote végpont csak olcsón ellenőriz, a VotePipeline sorába tesz és 202-t ad egy tickettel;
+     * a sort egy háttérszál kötegekben, kötegenként egy tranzakcióban írja ki (VoteBatchWriter).
+     * Az IdeaService.vote közvetlen hívása ilyenkor a SYNC utat járja.
+     */
+    ASYNC,
+
+    /**
+     * Mint az ATOMIC, de a növelés az ötlet egy véletlen idea_vote_slots sorát éri (VoteSlotCounter),
+     * így egy népszerű ötlet szavazatai több node-ról sem sorosodnak egyetlen sorzáron. A listázások
+     * az időnként visszaírt (fold) ideas.votes szerint rendeznek.
+     */
+    STRIPED
+}
@@ -3,6 +3,7 @@ package com.gabor.upvote.controller;
 import com.gabor.upvote.dto.RegistrationRequest;
 import com.gabor.upvote.model.User;
 import com.gabor.upvote.service.AuthService;
+import com.gabor.upvote.service.ServiceMetrics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -19,16 +20,18 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthService authService;
+    private final ServiceMetrics metrics;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, ServiceMetrics metrics) {
         this.authService = authService;
+        this.metrics = metrics;
     }
 
     @PostMapping("/register")
     @Operation(summary = "Register a new user", description = "Creates a new voter account")
     public ResponseEntity<?> register(@Valid @RequestBody RegistrationRequest request) {
         try {
-            User user = authService.register(request);
+            User user = metrics.register().record(() -> authService.register(request));
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", user.getId());
@@ -0,0 +1,67 @@
+package com.gabor.upvote.controller;
+
+import com.gabor.upvote.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/admin/export")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Export", description = "Bulk NDJSON export for reporting")
+public class ExportController {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/ideas")
+    @Operation(summary = "Stream all ideas as NDJSON (optionally gzip)")
+    public ResponseEntity<StreamingResponseBody> exportIdeas(@RequestParam(defaultValue = "false") boolean gzip) {
+        return stream("ideas", gzip, exportService::exportIdeas);
+    }
+
+    @GetMapping("/votes")
+    @Operation(summary = "Stream all vote records as NDJSON (optionally gzip)")
+    public ResponseEntity<StreamingResponseBody> exportVotes(@RequestParam(defaultValue = "false") boolean gzip) {
+        return stream("votes", gzip, exportService::exportVoteRecords);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, boolean gzip, Exporter exporter) {
+        String filename = gzip ? name + ".ndjson.gz" : name + ".ndjson";
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                    exporter.export(compressed);
+                }
+            } else {
+                exporter.export(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    @FunctionalInterface
+    private interface Exporter {
+        long export(OutputStream out) throws IOException;
+    }
+}
@@ -1,18 +1,43 @@
 package com.gabor.upvote.controller;
 
+        import com.gabor.upvote.dto.IdeaBatchRequest;
+        import com.gabor.upvote.dto.IdeaBatchResult;
+        import com.gabor.upvote.dto.IdeaChanges;
+        import com.gabor.upvote.dto.IdeaPage;
         import com.gabor.upvote.dto.IdeaRequest;
+        import com.gabor.upvote.dto.IdeaSummary;
+        import com.gabor.upvote.dto.TrendingIdea;
+        import com.gabor.upvote.dto.VoteSeries;
+        import com.gabor.upvote.dto.VoteTicket;
         import com.gabor.upvote.model.Idea;
         import com.gabor.upvote.service.IdeaService;
+        import com.gabor.upvote.service.IdeaStreamBroadcaster;
+        import com.gabor.upvote.service.RenderedListing;
+        import com.gabor.upvote.service.ServiceMetrics;
+        import com.gabor.upvote.service.VotePipeline;
         import io.swagger.v3.oas.annotations.Operation;
         import io.swagger.v3.oas.annotations.tags.Tag;
         import jakarta.servlet.http.HttpSession;
         import jakarta.validation.Valid;
+        import org.springframework.format.annotation.DateTimeFormat;
+        import org.springframework.http.CacheControl;
+        import org.springframework.http.HttpHeaders;
+        import org.springframework.http.HttpStatus;
+        import org.springframework.http.InvalidMediaTypeException;
+        import org.springframework.http.MediaType;
         import org.springframework.http.ResponseEntity;
         import org.springframework.security.access.prepost.PreAuthorize;
         import org.springframework.security.core.Authentication;
         import org.springframework.web.bind.annotation.*;
+        import org.springframework.web.context.request.WebRequest;
+        import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+        import java.net.URI;
+        import java.time.Instant;
+        import java.util.ArrayList;
+        import java.util.Comparator;
         import java.util.List;
+        import java.util.Locale;
         import java.util.Map;
         import java.util.NoSuchElementException;
 
@@ -21,10 +46,21 @@ package com.gabor.upvote.controller;
 @Tag(name = "Ideas", description = "Idea submission and voting")
 public class IdeaController {
 
+    // A message converterek sorrendjében: azonos preferencia mellett a JSON nyer
+    private static final List<MediaType> FORMATS = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, new MediaType("application", "x-jackson-smile"));
+
     private final IdeaService ideaService;
+    private final IdeaStreamBroadcaster streamBroadcaster;
+    private final VotePipeline votePipeline;
+    private final ServiceMetrics metrics;
 
-    public IdeaController(IdeaService ideaService) {
+    public IdeaController(IdeaService ideaService, IdeaStreamBroadcaster streamBroadcaster, VotePipeline votePipeline,
+                          ServiceMetrics metrics) {
         this.ideaService = ideaService;
+        this.streamBroadcaster = streamBroadcaster;
+        this.votePipeline = votePipeline;
+        this.metrics = metrics;
     }
 
     @PostMapping
@@ -37,18 +73,184 @@ public class IdeaController {
 
     @GetMapping
     @Operation(summary = "List approved ideas (for voters)")
-    public ResponseEntity<List<Idea>> listApproved() {
-        return ResponseEntity.ok(ideaService.listApprovedIdeas());
+    public ResponseEntity<?> listApproved(WebRequest request) {
+        MediaType format = negotiatedFormat(request);
+        // A kész bájtok JSON-ok, bináris formátumot a message converter sorosít
+        boolean rendered = MediaType.APPLICATION_JSON.equals(format) && ideaService.isListingRendered();
+        boolean gzip = rendered && acceptsGzip(request);
+        // Betöltés előtt: változatlan táblánál a listát el sem kell készíteni
+        String etag = representationETag(ideaService.listingETag(), format, gzip);
+        if (etag != null && ifNoneMatch(request, etag) && request.checkNotModified(etag)) {
+            return null;
+        }
+        if (!rendered) {
+            return withETag(etag).body(ideaService.listApprovedIdeas());
+        }
+        RenderedListing listing = ideaService.renderApprovedIdeas();
+        // Közben változhatott a tábla: az ETag a ténylegesen elküldött verzióé
+        ResponseEntity.BodyBuilder response = withETag(representationETag(ideaService.listingETag(listing), format, gzip))
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(listing.gzip());
+        }
+        return response.body(listing.json());
+    }
+
+    // A checkNotModified eltérés esetén is beállítja az ETag fejlécet, ezért csak egyezésnél hívjuk
+    private static boolean ifNoneMatch(WebRequest request, String etag) {
+        String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String candidate : value.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Accept-Encoding q-értékekkel: "gzip;q=0" elutasítás, "*" a fel nem sorolt kódolásokra vonatkozik
+    private static boolean acceptsGzip(WebRequest request) {
+        String[] values = request.getHeaderValues(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                double quality = quality(parts);
+                if (name.equals("gzip")) {
+                    gzip = quality;
+                } else if (name.equals("*")) {
+                    any = quality;
+                }
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // Az Accept fejléc szerint választott formátum, ahogy a message converterek is döntenek
+    private static MediaType negotiatedFormat(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            for (MediaType format : FORMATS) {
+                if (type.getQualityValue() > 0 && type.includes(format)) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // Más formátumú vagy kódolású reprezentáció, más ETag
+    private static String representationETag(String etag, MediaType format, boolean gzip) {
+        if (etag == null) {
+            return null;
+        }
+        String variant = MediaType.APPLICATION_JSON.equals(format) ? "" : "-" + format.getSubtype();
+        if (gzip) {
+            variant += "-gzip";
+        }
+        return variant.isEmpty() ? etag : etag.substring(0, etag.length() - 1) + variant + "\"";
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "List approved ideas page by page (keyset cursor)")
+    public ResponseEntity<IdeaPage> pageApproved(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ideaService.pageApprovedIdeas(cursor, size));
+    }
+
+    @GetMapping("/trending")
+    @Operation(summary = "Approved ideas ranked by recent votes (exponentially decayed, served from memory)")
+    public ResponseEntity<List<TrendingIdea>> trending(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(ideaService.trendingIdeas(limit));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Idea details including the description (admins also see pending ideas)")
+    public ResponseEntity<Idea> getIdea(@PathVariable Long id, Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        return ResponseEntity.ok(ideaService.getIdea(id, admin));
+    }
+
+    @GetMapping("/{id}/votes/series")
+    @Operation(summary = "Votes of an idea per minute, hour or day (served from pre-aggregated rollups)")
+    public ResponseEntity<VoteSeries> voteSeries(@PathVariable Long id,
+                                                 @RequestParam(defaultValue = "hour") String granularity,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                 Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        return ResponseEntity.ok(ideaService.voteSeries(id, admin, granularity, from, to));
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Approved ideas changed since a version, plus removed idea ids (reset=true: reload the list)")
+    public ResponseEntity<IdeaChanges> changes(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(ideaService.changesSince(since != null ? since : 0));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Live vote counts and approval changes (Server-Sent Events, coalesced per tick)")
+    public ResponseEntity<SseEmitter> stream() {
+        return streamBroadcaster.subscribe()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
     }
 
     @PostMapping("/{id}/vote")
-    @Operation(summary = "Vote for an idea (one vote per user)")
+    @Operation(summary = "Vote for an idea (one vote per user; in async mode 202 with a ticket)")
     public ResponseEntity<?> vote(@PathVariable Long id, HttpSession session, Authentication authentication) {
         String sessionId = session.getId();
         String username = authentication.getName();
 
         try {
-            Idea updated = ideaService.vote(id, username, sessionId);
+            if (votePipeline.isEnabled()) {
+                return enqueueVote(id, username, sessionId);
+            }
+            // A tranzakciós proxyn kívül mérve, hogy a commit ideje is benne legyen
+            Idea updated = metrics.vote().record(() -> ideaService.vote(id, username, sessionId));
             return ResponseEntity.ok(updated);
         } catch (IllegalStateException e) {
             // 409 Conflict - már szavazott
@@ -65,20 +267,76 @@ public class IdeaController {
         }
     }
 
+    // 202 + ticket; tele sornál 503, a kliens később újrapróbálhatja
+    private ResponseEntity<?> enqueueVote(Long id, String username, String sessionId) {
+        return votePipeline.submit(id, username, sessionId)
+                .<ResponseEntity<?>>map(ticket -> ResponseEntity
+                        .accepted()
+                        .location(URI.create("/api/ideas/votes/" + ticket.getTicket()))
+                        .body(ticket))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(Map.of(
+                                "error", "Vote queue full",
+                                "message", "Túl sok szavazat érkezik, próbáld újra később"
+                        )));
+    }
+
+    @GetMapping("/votes/{ticket}")
+    @Operation(summary = "Status of an asynchronously submitted vote (only for the voter)")
+    public ResponseEntity<VoteTicket> voteStatus(@PathVariable String ticket, Authentication authentication) {
+        return votePipeline.status(ticket, authentication.getName())
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new NoSuchElementException("Vote ticket not found"));
+    }
+
     // Admin endpoints
     @GetMapping("/pending")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Idea>> pendingIdeas() {
-        return ResponseEntity.ok(ideaService.listPendingIdeas());
+    public ResponseEntity<List<IdeaSummary>> pendingIdeas(WebRequest request) {
+        String etag = representationETag(ideaService.listingETag(), negotiatedFormat(request), false);
+        if (etag != null && ifNoneMatch(request, etag) && request.checkNotModified(etag)) {
+            return null;
+        }
+        return withETag(etag).body(ideaService.listPendingIdeas());
+    }
+
+    // no-cache: a böngésző tárolhatja, de minden használat előtt If-None-Match-csel ellenőrzi
+    private static ResponseEntity.BodyBuilder withETag(String etag) {
+        if (etag == null) {
+            return ResponseEntity.ok();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    @GetMapping("/pending/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<IdeaPage> pendingPage(@RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ideaService.pagePendingIdeas(cursor, size));
     }
 
     @PostMapping("/{id}/approve")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Idea> approve(@PathVariable Long id) {
-        Idea approved = ideaService.approveIdea(id);
+        Idea approved = metrics.approve().record(() -> ideaService.approveIdea(id));
         return ResponseEntity.ok(approved);
     }
 
+    @PostMapping("/batch/approve")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Approve many pending ideas in one transaction")
+    public ResponseEntity<IdeaBatchResult> approveBatch(@Valid @RequestBody IdeaBatchRequest request) {
+        return ResponseEntity.ok(ideaService.approveIdeas(request.getIds()));
+    }
+
+    @PostMapping("/batch/reject")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Delete many ideas in one transaction")
+    public ResponseEntity<IdeaBatchResult> rejectBatch(@Valid @RequestBody IdeaBatchRequest request) {
+        return ResponseEntity.ok(ideaService.rejectIdeas(request.getIds()));
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
@@ -0,0 +1,42 @@
+package com.gabor.upvote.controller;
+
+import com.gabor.upvote.dto.ReconciliationReport;
+import com.gabor.upvote.service.VoteReconciler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/admin/reconciliation")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Reconciliation", description = "Checking and repairing denormalised vote counters")
+public class ReconciliationController {
+
+    private final VoteReconciler voteReconciler;
+
+    public ReconciliationController(VoteReconciler voteReconciler) {
+        this.voteReconciler = voteReconciler;
+    }
+
+    // 202: a háttérben fut, a haladás a GET végponton követhető; ha már fut egy, 409
+    @PostMapping
+    @Operation(summary = "Start reconciling ideas.votes against vote_records (repair=false: report only)")
+    public ResponseEntity<ReconciliationReport> start(@RequestParam(defaultValue = "true") boolean repair) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/admin/reconciliation"))
+                .body(voteReconciler.trigger(repair));
+    }
+
+    @GetMapping
+    @Operation(summary = "Progress of the running reconciliation, or the result of the last one")
+    public ResponseEntity<ReconciliationReport> status() {
+        return voteReconciler.status()
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new NoSuchElementException("No reconciliation has run yet"));
+    }
+}
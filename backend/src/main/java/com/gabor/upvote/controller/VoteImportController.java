@@ -0,0 +1,32 @@
+package com.gabor.upvote.controller;
+
+import com.gabor.upvote.dto.VoteImportResult;
+import com.gabor.upvote.service.VoteImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/votes")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Vote import", description = "Bulk ingestion of votes collected offline")
+public class VoteImportController {
+
+    private final VoteImportService voteImportService;
+
+    public VoteImportController(VoteImportService voteImportService) {
+        this.voteImportService = voteImportService;
+    }
+
+    // A törzset nem kötjük objektumra: soronként olvassuk, így a méretével nem nő a heap
+    @PostMapping(path = "/import", consumes = {"application/json", "application/x-ndjson"})
+    @Operation(summary = "Import {ideaId, username[, votedAt]} rows (JSON array or NDJSON); returns per-row rejections")
+    public ResponseEntity<VoteImportResult> importVotes(InputStream body) throws IOException {
+        return ResponseEntity.ok(voteImportService.importVotes(body));
+    }
+}
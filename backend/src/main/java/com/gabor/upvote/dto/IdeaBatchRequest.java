@@ -0,0 +1,17 @@
+package com.gabor.upvote.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class IdeaBatchRequest {
+
+    @NotEmpty
+    @Size(max = 10000)
+    private List<Long> ids;
+
+    // getters / setters
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
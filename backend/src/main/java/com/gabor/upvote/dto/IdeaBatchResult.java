@@ -0,0 +1,20 @@
+package com.gabor.upvote.dto;
+
+import java.util.List;
+
+public class IdeaBatchResult {
+
+    // A ténylegesen jóváhagyott / törölt ötletek
+    private final List<Long> processed;
+
+    // Nem létező, illetve jóváhagyásnál már jóváhagyott ötletek
+    private final List<Long> skipped;
+
+    public IdeaBatchResult(List<Long> processed, List<Long> skipped) {
+        this.processed = processed;
+        this.skipped = skipped;
+    }
+
+    public List<Long> getProcessed() { return processed; }
+    public List<Long> getSkipped() { return skipped; }
+}
@@ -0,0 +1,30 @@
+package com.gabor.upvote.dto;
+
+import java.util.List;
+
+public class IdeaChanges {
+
+    // A következő lekérdezés since paramétere
+    private final long version;
+
+    // true: a since verzió már nem követhető (újraindulás, túl régi), a teljes listát újra kell tölteni
+    private final boolean reset;
+
+    // A since óta módosult (szavazat, jóváhagyás) jóváhagyott ötletek
+    private final List<IdeaSummary> changed;
+
+    // A since óta törölt ötletek azonosítói
+    private final List<Long> removed;
+
+    public IdeaChanges(long version, boolean reset, List<IdeaSummary> changed, List<Long> removed) {
+        this.version = version;
+        this.reset = reset;
+        this.changed = changed;
+        this.removed = removed;
+    }
+
+    public long getVersion() { return version; }
+    public boolean isReset() { return reset; }
+    public List<IdeaSummary> getChanged() { return changed; }
+    public List<Long> getRemoved() { return removed; }
+}
@@ -0,0 +1,19 @@
+package com.gabor.upvote.dto;
+
+import java.util.List;
+
+public class IdeaPage {
+
+    private final List<IdeaSummary> items;
+
+    // null, ha nincs több oldal
+    private final String nextCursor;
+
+    public IdeaPage(List<IdeaSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<IdeaSummary> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,33 @@
+package com.gabor.upvote.dto;
+
+import com.gabor.upvote.model.Idea;
+
+import java.time.Instant;
+
+/**
+ * Egy ötlet a listázásokban: leírás nélkül, az a GET /api/ideas/{id} válaszában jön.
+ */
+public class IdeaSummary {
+
+    private final Long id;
+    private final String title;
+    private final int votes;
+    private final Instant createdAt;
+
+    // JPQL konstruktor kifejezés használja, a sorrend a lekérdezésekben is ez
+    public IdeaSummary(Long id, String title, int votes, Instant createdAt) {
+        this.id = id;
+        this.title = title;
+        this.votes = votes;
+        this.createdAt = createdAt;
+    }
+
+    public static IdeaSummary of(Idea idea) {
+        return new IdeaSummary(idea.getId(), idea.getTitle(), idea.getVotes(), idea.getCreatedAt());
+    }
+
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public int getVotes() { return votes; }
+    public Instant getCreatedAt() { return createdAt; }
+}
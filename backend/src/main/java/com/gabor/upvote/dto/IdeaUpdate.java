@@ -0,0 +1,47 @@
+package com.gabor.upvote.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Egy ötlet összevont változása a /api/ideas/stream eseményeiben.
+ * Törölt (elutasított) ötletnél csak az id és a removed mező szerepel.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IdeaUpdate {
+
+    private final Long id;
+    private final Integer votes;
+    private final Boolean approved;
+    private final Boolean removed;
+
+    private IdeaUpdate(Long id, Integer votes, Boolean approved, Boolean removed) {
+        this.id = id;
+        this.votes = votes;
+        this.approved = approved;
+        this.removed = removed;
+    }
+
+    public static IdeaUpdate changed(Long id, int votes, boolean approved) {
+        return new IdeaUpdate(id, votes, approved, null);
+    }
+
+    public static IdeaUpdate removed(Long id) {
+        return new IdeaUpdate(id, null, null, true);
+    }
+
+    /**
+     * Két, ugyanarra az ötletre vonatkozó változás összevonása. A szavazatszám nem csökkenhet
+     * (felcserélődött események), a törlés pedig végleges.
+     */
+    public IdeaUpdate merge(IdeaUpdate later) {
+        if (Boolean.TRUE.equals(removed) || Boolean.TRUE.equals(later.removed)) {
+            return removed(id);
+        }
+        return changed(id, Math.max(votes, later.votes), approved || later.approved);
+    }
+
+    public Long getId() { return id; }
+    public Integer getVotes() { return votes; }
+    public Boolean getApproved() { return approved; }
+    public Boolean getRemoved() { return removed; }
+}
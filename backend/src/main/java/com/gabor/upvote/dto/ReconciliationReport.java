@@ -0,0 +1,52 @@
+package com.gabor.upvote.dto;
+
+import java.time.Instant;
+
+/**
+ * Az ideas.votes egyeztetésének állapota: futás közben a haladás, utána az eredmény.
+ */
+public class ReconciliationReport {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final Status status;
+    private final boolean repair;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final long chunks;
+    private final long chunksDone;
+    private final long ideasScanned;
+    // Eltérő ötletek, és az eltérések abszolút összege
+    private final long driftedIdeas;
+    private final long driftedVotes;
+    private final long repaired;
+    private final String error;
+
+    public ReconciliationReport(Status status, boolean repair, Instant startedAt, Instant finishedAt,
+                                long chunks, long chunksDone, long ideasScanned,
+                                long driftedIdeas, long driftedVotes, long repaired, String error) {
+        this.status = status;
+        this.repair = repair;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.chunks = chunks;
+        this.chunksDone = chunksDone;
+        this.ideasScanned = ideasScanned;
+        this.driftedIdeas = driftedIdeas;
+        this.driftedVotes = driftedVotes;
+        this.repaired = repaired;
+        this.error = error;
+    }
+
+    public Status getStatus() { return status; }
+    public boolean isRepair() { return repair; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public long getChunks() { return chunks; }
+    public long getChunksDone() { return chunksDone; }
+    public long getIdeasScanned() { return ideasScanned; }
+    public long getDriftedIdeas() { return driftedIdeas; }
+    public long getDriftedVotes() { return driftedVotes; }
+    public long getRepaired() { return repaired; }
+    public String getError() { return error; }
+}
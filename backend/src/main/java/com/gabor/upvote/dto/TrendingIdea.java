@@ -0,0 +1,29 @@
+package com.gabor.upvote.dto;
+
+import java.time.Instant;
+
+/**
+ * Egy ötlet a trending listában: a score a szavazatok felezési idővel súlyozott összege (a friss szavazat 1).
+ */
+public class TrendingIdea {
+
+    private final Long id;
+    private final String title;
+    private final int votes;
+    private final Instant createdAt;
+    private final double score;
+
+    public TrendingIdea(IdeaSummary idea, double score) {
+        this.id = idea.getId();
+        this.title = idea.getTitle();
+        this.votes = idea.getVotes();
+        this.createdAt = idea.getCreatedAt();
+        this.score = score;
+    }
+
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public int getVotes() { return votes; }
+    public Instant getCreatedAt() { return createdAt; }
+    public double getScore() { return score; }
+}
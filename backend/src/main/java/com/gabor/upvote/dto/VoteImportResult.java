@@ -0,0 +1,54 @@
+package com.gabor.upvote.dto;
+
+import java.util.List;
+
+public class VoteImportResult {
+
+    public enum Reason {
+        // hiányzó ideaId vagy username
+        INVALID,
+        // nincs ilyen jóváhagyott ötlet
+        UNKNOWN_IDEA,
+        // a usernek már van szavazata
+        ALREADY_VOTED,
+        // ugyanaz a user többször szerepel az importban
+        DUPLICATE_IN_IMPORT,
+        // a votedAt hónapjához nincs csatolt vote_records partíció (lecsatolt vagy túl távoli jövő)
+        OUT_OF_RANGE
+    }
+
+    private final long received;
+    private final long accepted;
+    private final List<Rejection> rejections;
+
+    public VoteImportResult(long received, long accepted, List<Rejection> rejections) {
+        this.received = received;
+        this.accepted = accepted;
+        this.rejections = rejections;
+    }
+
+    public long getReceived() { return received; }
+    public long getAccepted() { return accepted; }
+    public List<Rejection> getRejections() { return rejections; }
+
+    public static class Rejection {
+
+        // A sor 0-tól számolt sorszáma a bemenetben
+        private final long index;
+        private final Long ideaId;
+        private final String username;
+        private final Reason reason;
+
+        public Rejection(long index, Long ideaId, String username, Reason reason) {
+            this.index = index;
+            this.ideaId = ideaId;
+            this.username = username;
+            this.reason = reason;
+        }
+
+        public long getIndex() { return index; }
+        public Long getIdeaId() { return ideaId; }
+        public String getUsername() { return username; }
+        public Reason getReason() { return reason; }
+    }
+}
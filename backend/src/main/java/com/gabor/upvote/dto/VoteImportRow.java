@@ -0,0 +1,21 @@
+package com.gabor.upvote.dto;
+
+import java.time.Instant;
+
+/**
+ * A tömeges szavazatimport egy sora. A votedAt opcionális (pl. a workshop időpontja), alapból az import ideje.
+ */
+public class VoteImportRow {
+
+    private Long ideaId;
+    private String username;
+    private Instant votedAt;
+
+    // getters / setters
+    public Long getIdeaId() { return ideaId; }
+    public void setIdeaId(Long ideaId) { this.ideaId = ideaId; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public Instant getVotedAt() { return votedAt; }
+    public void setVotedAt(Instant votedAt) { this.votedAt = votedAt; }
+}
@@ -0,0 +1,33 @@
+package com.gabor.upvote.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Egy ötlet szavazatai időszeletenként a [from, to) tartományban, hézagmentesen (a szavazat nélküli szelet 0).
+ * A legfrissebb néhány másodperc szavazatai még hiányozhatnak: a rollupokat a háttérben aggregáljuk.
+ */
+public class VoteSeries {
+
+    public record Bucket(Instant start, long votes) { }
+
+    private final Long ideaId;
+    private final String granularity;
+    private final Instant from;
+    private final Instant to;
+    private final List<Bucket> buckets;
+
+    public VoteSeries(Long ideaId, String granularity, Instant from, Instant to, List<Bucket> buckets) {
+        this.ideaId = ideaId;
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+        this.buckets = buckets;
+    }
+
+    public Long getIdeaId() { return ideaId; }
+    public String getGranularity() { return granularity; }
+    public Instant getFrom() { return from; }
+    public Instant getTo() { return to; }
+    public List<Bucket> getBuckets() { return buckets; }
+}
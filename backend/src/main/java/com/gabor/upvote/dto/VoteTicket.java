@@ -0,0 +1,52 @@
+package com.gabor.upvote.dto;
+
+/**
+ * Aszinkron szavazás (upvote.votes.mode=async) állapota: a POST /api/ideas/{id}/vote 202 válasza,
+ * majd a GET /api/ideas/votes/{ticket} lekérdezés eredménye.
+ */
+public class VoteTicket {
+
+    public enum Status {
+        // a sorban vár
+        QUEUED,
+        // commitolva
+        ACCEPTED,
+        // a reason mezőben az ok
+        REJECTED,
+        // leálláskor sem volt elérhető az adatbázis (naplóval a következő induláskor kerül be),
+        // vagy a szavazat nem írható (pl. adathiba)
+        FAILED
+    }
+
+    public enum Reason {
+        // a usernek már van szavazata
+        ALREADY_VOTED,
+        // az ötletet közben törölték
+        IDEA_UNAVAILABLE
+    }
+
+    private final String ticket;
+    private final Long ideaId;
+    private final Status status;
+    private final Reason reason;
+
+    public VoteTicket(String ticket, Long ideaId, Status status, Reason reason) {
+        this.ticket = ticket;
+        this.ideaId = ideaId;
+        this.status = status;
+        this.reason = reason;
+    }
+
+    public static VoteTicket queued(String ticket, Long ideaId) {
+        return new VoteTicket(ticket, ideaId, Status.QUEUED, null);
+    }
+
+    public VoteTicket with(Status status, Reason reason) {
+        return new VoteTicket(ticket, ideaId, status, reason);
+    }
+
+    public String getTicket() { return ticket; }
+    public Long getIdeaId() { return ideaId; }
+    public Status getStatus() { return status; }
+    public Reason getReason() { return reason; }
+}
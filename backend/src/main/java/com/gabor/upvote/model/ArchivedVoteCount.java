@@ -0,0 +1,24 @@
+package com.gabor.upvote.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A vote_records táblából lecsatolt (archivált) partíciók szavazatai ötletenként. Az ideas.votes ezeket is
+ * tartalmazza, így az egyeztetés a vote_records sorok és ezek összegével hasonlít.
+ */
+@Entity
+@Table(name = "vote_archive_counts")
+public class ArchivedVoteCount {
+
+    @Id
+    @Column(name = "idea_id")
+    private Long ideaId;
+
+    @Column(name = "votes", nullable = false)
+    private long votes;
+
+    public ArchivedVoteCount() {}
+
+    public Long getIdeaId() { return ideaId; }
+    public long getVotes() { return votes; }
+}
@@ -1,10 +1,17 @@
 package com.gabor.upvote.model;
 
         import jakarta.persistence.*;
+        import org.hibernate.annotations.DynamicUpdate;
         import java.time.Instant;
+        import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "ideas")
+@DynamicUpdate  // csak a módosult oszlopok: pl. az approve ne írja felül a párhuzamosan növelt votes-t
+@Table(name = "ideas", indexes = {
+        // a keyset lapozás rendezési kulcsai
+        @Index(name = "idx_ideas_approved_votes_created_id", columnList = "approved, votes desc, created_at desc, id desc"),
+        @Index(name = "idx_ideas_approved_created_id", columnList = "approved, created_at desc, id desc")
+})
 public class Idea {
 
     @Id
@@ -20,7 +27,8 @@ public class Idea {
 
     private int votes = 0;
 
-    private Instant createdAt = Instant.now();
+    // Mikroszekundumra vágva, mint az adatbázis oszlop: a kurzor így egyezik a tárolt értékkel
+    private Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
 
     public Idea() {}
 
@@ -0,0 +1,58 @@
+package com.gabor.upvote.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Striped módban egy ötlet szavazatszámlálójának egy szelete: a szavazás egy véletlen slot sorát növeli,
+ * így a párhuzamos (akár több node-ról érkező) szavazatok nem egyetlen ideas soron várakoznak.
+ * Az ötlet valódi száma az ideas.votes és a slotok összege; a fold időnként visszaírja őket az ideas sorba.
+ */
+@Entity
+@Table(name = "idea_vote_slots")
+@IdClass(IdeaVoteSlot.Key.class)
+public class IdeaVoteSlot {
+
+    @Id
+    @Column(name = "idea_id")
+    private Long ideaId;
+
+    @Id
+    @Column(name = "slot")
+    private int slot;
+
+    @Column(name = "votes", nullable = false)
+    private long votes;
+
+    public IdeaVoteSlot() {}
+
+    public Long getIdeaId() { return ideaId; }
+    public int getSlot() { return slot; }
+    public long getVotes() { return votes; }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long ideaId;
+        private int slot;
+
+        public Key() {}
+
+        public Key(Long ideaId, int slot) {
+            this.ideaId = ideaId;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && slot == other.slot && Objects.equals(ideaId, other.ideaId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ideaId, slot);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.gabor.upvote.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Egyszer lefutó indulási feladatok jelzősora: ha a sor megvan, a feladat a következő indulásokon kimarad.
+ * A sor törlésével a feladat újra lefut.
+ */
+@Entity
+@Table(name = "startup_tasks")
+public class StartupTask {
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @Column(name = "completed_at", nullable = false)
+    private Instant completedAt;
+
+    public StartupTask() {}
+
+    public String getName() { return name; }
+    public Instant getCompletedAt() { return completedAt; }
+}
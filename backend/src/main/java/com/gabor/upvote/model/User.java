@@ -1,5 +1,6 @@
 package com.gabor.upvote.model;
 
+import com.gabor.upvote.service.UserChangeListener;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.HashSet;
@@ -7,6 +8,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 public class User {
 
     @Id
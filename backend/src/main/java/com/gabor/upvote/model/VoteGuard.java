@@ -0,0 +1,37 @@
+package com.gabor.upvote.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Felhasználónként egy sor: ez biztosítja adatbázis szinten, hogy mindenki csak egyszer szavazhasson.
+ * A vote_records (idea_id, username) kényszere ezt önmagában nem tudja garantálni.
+ */
+@Entity
+@Table(name = "vote_guards")
+public class VoteGuard {
+
+    @Id
+    @Column(name = "username", length = 100)
+    private String username;
+
+    @Column(name = "idea_id", nullable = false)
+    private Long ideaId;
+
+    @Column(name = "voted_at")
+    private Instant votedAt = Instant.now();
+
+    public VoteGuard() {}
+
+    public VoteGuard(String username, Long ideaId) {
+        this.username = username;
+        this.ideaId = ideaId;
+    }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public Long getIdeaId() { return ideaId; }
+    public void setIdeaId(Long ideaId) { this.ideaId = ideaId; }
+    public Instant getVotedAt() { return votedAt; }
+    public void setVotedAt(Instant votedAt) { this.votedAt = votedAt; }
+}
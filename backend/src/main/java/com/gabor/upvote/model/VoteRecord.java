@@ -6,9 +6,14 @@ import java.time.Instant;
 @Entity
 @Table(name = "vote_records", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"idea_id", "username"})  // ⬅️ VÁLTOZÁS!
+}, indexes = {
+        // A felkapott ötletek induláskori újraépítése (voted_at >= ?) ne a teljes táblát olvassa
+        @Index(name = VoteRecord.VOTED_AT_INDEX, columnList = "voted_at")
 })
 public class VoteRecord {
 
+    public static final String VOTED_AT_INDEX = "idx_vote_records_voted_at";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,86 @@
+package com.gabor.upvote.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+/**
+ * Egy ötlet szavazatainak száma egy perces / órás / napos időszeletben (UTC). A vote_records sorokból
+ * a háttérben aggregáljuk, így egy idősor lekérdezése a szeletek számával arányos, nem a szavazatokéval.
+ */
+@Entity
+@Table(name = "vote_rollups", indexes = @Index(name = "idx_vote_rollups_bucket", columnList = "granularity, bucket_start"))
+@IdClass(VoteRollup.Key.class)
+public class VoteRollup {
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public ChronoUnit getUnit() { return unit; }
+
+        public Instant bucketOf(Instant instant) {
+            return instant.truncatedTo(unit);
+        }
+    }
+
+    @Id
+    @Column(name = "idea_id")
+    private Long ideaId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 8)
+    private Granularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private Instant bucketStart;
+
+    @Column(name = "votes", nullable = false)
+    private long votes;
+
+    public VoteRollup() {}
+
+    public Long getIdeaId() { return ideaId; }
+    public Granularity getGranularity() { return granularity; }
+    public Instant getBucketStart() { return bucketStart; }
+    public long getVotes() { return votes; }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long ideaId;
+        private Granularity granularity;
+        private Instant bucketStart;
+
+        public Key() {}
+
+        public Key(Long ideaId, Granularity granularity, Instant bucketStart) {
+            this.ideaId = ideaId;
+            this.granularity = granularity;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && granularity == other.granularity
+                    && Objects.equals(ideaId, other.ideaId) && Objects.equals(bucketStart, other.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ideaId, granularity, bucketStart);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.gabor.upvote.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A rollup watermark által átlépett, de még nem látott vote_records id tartomány. Késve commitoló
+ * tranzakció sora később itt bukkanhat fel; a visszagörgetett (vagy ON CONFLICT miatt elhasznált) id-k
+ * soha, ezért a tartomány egy idő után lejár.
+ */
+@Entity
+@Table(name = "vote_rollup_gaps")
+public class VoteRollupGap {
+
+    @Id
+    @Column(name = "from_id")
+    private Long fromId;
+
+    @Column(name = "to_id", nullable = false)
+    private long toId;
+
+    @Column(name = "seen_at", nullable = false)
+    private Instant seenAt;
+
+    public VoteRollupGap() {}
+
+    public Long getFromId() { return fromId; }
+    public long getToId() { return toId; }
+    public Instant getSeenAt() { return seenAt; }
+}
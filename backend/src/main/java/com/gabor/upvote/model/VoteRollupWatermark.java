@@ -0,0 +1,25 @@
+package com.gabor.upvote.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Az aggregálás állása: a vote_records legnagyobb id-je, ameddig a rollup táblák már tartalmazzák a szavazatokat.
+ * A sort az aggregáló tranzakció zárolja, így több backend példány közül egyszerre csak egy halad előre.
+ */
+@Entity
+@Table(name = "vote_rollup_watermark")
+public class VoteRollupWatermark {
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    public VoteRollupWatermark() {}
+
+    public String getName() { return name; }
+    public long getLastId() { return lastId; }
+    public void setLastId(long lastId) { this.lastId = lastId; }
+}
@@ -1,12 +1,99 @@
 package com.gabor.upvote.repository;
 
+        import com.gabor.upvote.dto.IdeaSummary;
         import com.gabor.upvote.model.Idea;
+        import jakarta.persistence.QueryHint;
+        import org.springframework.data.domain.Pageable;
         import org.springframework.data.jpa.repository.JpaRepository;
+        import org.springframework.data.jpa.repository.Modifying;
+        import org.springframework.data.jpa.repository.Query;
+        import org.springframework.data.jpa.repository.QueryHints;
+        import org.springframework.data.repository.query.Param;
         import org.springframework.stereotype.Repository;
+        import java.time.Instant;
+        import java.util.Collection;
         import java.util.List;
+        import java.util.Optional;
+        import java.util.stream.Stream;
+
+        import static org.hibernate.jpa.AvailableHints.HINT_FETCH_SIZE;
+        import static org.hibernate.jpa.AvailableHints.HINT_READ_ONLY;
 
 @Repository
 public interface IdeaRepository extends JpaRepository<Idea, Long> {
-    List<Idea> findByApprovedTrueOrderByVotesDescCreatedAtDesc();
-    List<Idea> findByApprovedFalseOrderByCreatedAtDesc();
+    // A listázások csak a szűk oszlopokat olvassák: a 4000 karakteres leírás a részletes nézetbe tartozik
+    String SUMMARY = "select new com.gabor.upvote.dto.IdeaSummary(i.id, i.title, i.votes, i.createdAt) from Idea i ";
+
+    @Query(SUMMARY + "where i.approved = true order by i.votes desc, i.createdAt desc, i.id desc")
+    List<IdeaSummary> findApprovedSummaries();
+
+    @Query(SUMMARY + "where i.approved = false order by i.createdAt desc, i.id desc")
+    List<IdeaSummary> findPendingSummaries();
+
+    @Query(SUMMARY + "where i.id in :ids")
+    List<IdeaSummary> findSummariesByIdIn(@Param("ids") Iterable<Long> ids);
+
+    @Query("select i.id from Idea i where i.approved = true")
+    List<Long> findApprovedIds();
+
+    // Kötegelt moderálás: halmaz alapú utasítások, a persistence context megkerülésével
+    @Query("select i.id from Idea i where i.id in :ids and i.approved = false")
+    List<Long> findPendingIdsIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select i.id from Idea i where i.id in :ids")
+    List<Long> findExistingIdsIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Idea i set i.approved = true where i.id in :ids and i.approved = false")
+    int approveAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Idea i where i.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset lapozás: a Pageable csak a limitet adja, mindig a 0. oldallal hívjuk
+    @Query(SUMMARY + "where i.approved = true order by i.votes desc, i.createdAt desc, i.id desc")
+    List<IdeaSummary> findApprovedFirstPage(Pageable limit);
+
+    @Query(SUMMARY + "where i.approved = true and (i.votes < :votes " +
+            "or (i.votes = :votes and (i.createdAt < :createdAt or (i.createdAt = :createdAt and i.id < :id)))) " +
+            "order by i.votes desc, i.createdAt desc, i.id desc")
+    List<IdeaSummary> findApprovedPageAfter(@Param("votes") int votes, @Param("createdAt") Instant createdAt,
+                                            @Param("id") Long id, Pageable limit);
+
+    @Query(SUMMARY + "where i.approved = false order by i.createdAt desc, i.id desc")
+    List<IdeaSummary> findPendingFirstPage(Pageable limit);
+
+    @Query(SUMMARY + "where i.approved = false " +
+            "and (i.createdAt < :createdAt or (i.createdAt = :createdAt and i.id < :id)) " +
+            "order by i.createdAt desc, i.id desc")
+    List<IdeaSummary> findPendingPageAfter(@Param("createdAt") Instant createdAt, @Param("id") Long id, Pageable limit);
+
+    @Modifying
+    @Query("update Idea i set i.votes = i.votes + :delta where i.id = :id")
+    int incrementVotes(@Param("id") Long id, @Param("delta") int delta);
+
+    @Modifying
+    @Query("update Idea i set i.votes = i.votes + 1 where i.id = :id and i.approved = true")
+    int incrementVotesIfApproved(@Param("id") Long id);
+
+    // Egyeztetés: a sor zárolása a tranzakció végéig, a párhuzamos szavazat növelése erre vár
+    @Query(value = "SELECT votes FROM ideas WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockVotes(@Param("id") Long id);
+
+    // Amennyinek az ideas.votes oszlopban kell lennie: a szavazatok száma (a lecsatolt partíciókéval együtt),
+    // a striped slotokban várók nélkül
+    @Query(value = "SELECT (SELECT count(*) FROM vote_records WHERE idea_id = :id) " +
+            "+ (SELECT coalesce(sum(votes), 0) FROM vote_archive_counts WHERE idea_id = :id) " +
+            "- (SELECT coalesce(sum(votes), 0) FROM idea_vote_slots WHERE idea_id = :id)", nativeQuery = true)
+    long countExpectedVotes(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Idea i set i.votes = :votes where i.id = :id")
+    int setVotes(@Param("id") Long id, @Param("votes") int votes);
+
+    // Export: forward-only kurzor fix fetch mérettel, csak read-only tranzakcióban használható
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select i from Idea i order by i.id")
+    Stream<Idea> streamAllOrderById();
 }
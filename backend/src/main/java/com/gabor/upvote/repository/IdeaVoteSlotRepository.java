@@ -0,0 +1,48 @@
+package com.gabor.upvote.repository;
+
+import com.gabor.upvote.model.IdeaVoteSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface IdeaVoteSlotRepository extends JpaRepository<IdeaVoteSlot, IdeaVoteSlot.Key> {
+
+    // 0, ha a slot sora még nem létezik (vagy a fold éppen törölte)
+    @Modifying
+    @Query(value = "UPDATE idea_vote_slots SET votes = votes + 1 WHERE idea_id = :ideaId AND slot = :slot",
+            nativeQuery = true)
+    int increment(@Param("ideaId") Long ideaId, @Param("slot") int slot);
+
+    // 0, ha közben egy párhuzamos szavazás létrehozta a sort
+    @Modifying
+    @Query(value = "INSERT INTO idea_vote_slots (idea_id, slot, votes) VALUES (:ideaId, :slot, 1) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("ideaId") Long ideaId, @Param("slot") int slot);
+
+    @Query("select coalesce(sum(s.votes), 0) from IdeaVoteSlot s where s.ideaId = :ideaId")
+    long sumVotes(@Param("ideaId") Long ideaId);
+
+    // A még vissza nem írt szavazatú ötletek, rendezve (a fold ebben a sorrendben zárol)
+    @Query("select distinct s.ideaId from IdeaVoteSlot s where s.votes <> 0 order by s.ideaId")
+    List<Long> findUnfoldedIdeaIds();
+
+    // Az ötlet slotjai zárolva, [slot, votes] párokként: a fold a tranzakción belül ezeket írja át
+    @Query(value = "SELECT slot, votes FROM idea_vote_slots WHERE idea_id = :ideaId AND votes <> 0 " +
+            "ORDER BY slot FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockUnfolded(@Param("ideaId") Long ideaId);
+
+    // Relatív csökkentés: a kiolvasás óta érkezett szavazatok a slotban maradnak
+    @Modifying
+    @Query(value = "UPDATE idea_vote_slots SET votes = votes - :delta WHERE idea_id = :ideaId AND slot = :slot",
+            nativeQuery = true)
+    int subtract(@Param("ideaId") Long ideaId, @Param("slot") int slot, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "DELETE FROM idea_vote_slots WHERE idea_id = :ideaId AND votes = 0", nativeQuery = true)
+    int deleteEmpty(@Param("ideaId") Long ideaId);
+}
@@ -0,0 +1,20 @@
+package com.gabor.upvote.repository;
+
+import com.gabor.upvote.model.StartupTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface StartupTaskRepository extends JpaRepository<StartupTask, String> {
+
+    // Több példány egyidejű indulásakor is csak egy sor lesz
+    @Modifying
+    @Query(value = "INSERT INTO startup_tasks (name, completed_at) VALUES (:name, :completedAt) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int markCompleted(@Param("name") String name, @Param("completedAt") Instant completedAt);
+}
@@ -0,0 +1,34 @@
+package com.gabor.upvote.repository;
+
+import com.gabor.upvote.model.VoteGuard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VoteGuardRepository extends JpaRepository<VoteGuard, String> {
+
+    // 1 = a user most szavaz először, 0 = már van szavazata
+    @Modifying
+    @Query(value = "INSERT INTO vote_guards (username, idea_id, voted_at) VALUES (:username, :ideaId, :votedAt) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claim(@Param("username") String username, @Param("ideaId") Long ideaId, @Param("votedAt") Instant votedAt);
+
+    // A megadott userek közül azok, akik már szavaztak
+    @Query("select g.username from VoteGuard g where g.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Induláskor: a guard tábla előtti (vagy kívülről beszúrt) szavazatok pótlása
+    @Modifying
+    @Query(value = "INSERT INTO vote_guards (username, idea_id, voted_at) " +
+            "SELECT v.username, v.idea_id, v.voted_at FROM vote_records v " +
+            "WHERE NOT EXISTS (SELECT 1 FROM vote_guards g WHERE g.username = v.username) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int backfillFromVoteRecords();
+}
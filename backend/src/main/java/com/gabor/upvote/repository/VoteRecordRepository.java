@@ -1,19 +1,51 @@
 package com.gabor.upvote.repository;
 
 import com.gabor.upvote.model.VoteRecord;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.AvailableHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.AvailableHints.HINT_READ_ONLY;
 
 @Repository
 public interface VoteRecordRepository extends JpaRepository<VoteRecord, Long> {
     Optional<VoteRecord> findByIdeaIdAndSessionId(Long ideaId, String sessionId);
     long countByIdeaId(Long ideaId);
 
+    // A még csatolt sorok és a lecsatolt partíciók vote_archive_counts-ba mentett száma
+    @Query(value = "SELECT (SELECT count(*) FROM vote_records WHERE idea_id = :ideaId) + " +
+            "coalesce((SELECT votes FROM vote_archive_counts WHERE idea_id = :ideaId), 0)", nativeQuery = true)
+    long countIncludingArchived(@Param("ideaId") Long ideaId);
+
+    // Particionált táblán: a since előtti hónapok már le vannak csatolva, azokat csak a vote_archive_counts adja
+    @Query(value = "SELECT (SELECT count(*) FROM vote_records WHERE idea_id = :ideaId AND voted_at >= :since) + " +
+            "coalesce((SELECT votes FROM vote_archive_counts WHERE idea_id = :ideaId), 0)", nativeQuery = true)
+    long countIncludingArchivedSince(@Param("ideaId") Long ideaId, @Param("since") Instant since);
+
     // ⬅️ ÚJ METÓDUS: Ellenőrzi, hogy a user szavazott-e már BÁRMELYIK ötletre
     boolean existsByUsername(String username);
 
     // ⬅️ ÚJ METÓDUS: Visszaadja, hogy melyik ötletre szavazott
     Optional<VoteRecord> findByUsername(String username);
-}
\ No newline at end of file
+
+    // 0, ha az (idea_id, username) pár már létezik - ilyenkor nem dob kivételt
+    @Modifying
+    @Query(value = "INSERT INTO vote_records (idea_id, username, session_id, voted_at) " +
+            "VALUES (:ideaId, :username, :sessionId, :votedAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("ideaId") Long ideaId, @Param("username") String username,
+                       @Param("sessionId") String sessionId, @Param("votedAt") Instant votedAt);
+
+    // Export: forward-only kurzor fix fetch mérettel, csak read-only tranzakcióban használható
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select v from VoteRecord v order by v.id")
+    Stream<VoteRecord> streamAllOrderById();
+}
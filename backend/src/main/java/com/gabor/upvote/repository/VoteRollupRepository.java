@@ -0,0 +1,38 @@
+package com.gabor.upvote.repository;
+
+import com.gabor.upvote.model.VoteRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface VoteRollupRepository extends JpaRepository<VoteRollup, VoteRollup.Key> {
+
+    // 0, ha az időszelet sora még nem létezik
+    @Modifying
+    @Query(value = "UPDATE vote_rollups SET votes = votes + :delta " +
+            "WHERE idea_id = :ideaId AND granularity = :granularity AND bucket_start = :bucketStart", nativeQuery = true)
+    int increment(@Param("ideaId") Long ideaId, @Param("granularity") String granularity,
+                  @Param("bucketStart") Instant bucketStart, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "INSERT INTO vote_rollups (idea_id, granularity, bucket_start, votes) " +
+            "VALUES (:ideaId, :granularity, :bucketStart, :delta) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("ideaId") Long ideaId, @Param("granularity") String granularity,
+                       @Param("bucketStart") Instant bucketStart, @Param("delta") long delta);
+
+    // Elsődleges kulcs szerinti tartomány: a költség a visszaadott szeletek számával arányos
+    @Query("select r from VoteRollup r where r.ideaId = :ideaId and r.granularity = :granularity " +
+            "and r.bucketStart >= :from and r.bucketStart < :to order by r.bucketStart")
+    List<VoteRollup> findSeries(@Param("ideaId") Long ideaId, @Param("granularity") VoteRollup.Granularity granularity,
+                                @Param("from") Instant from, @Param("to") Instant to);
+
+    @Modifying
+    @Query("delete from VoteRollup r where r.granularity = :granularity and r.bucketStart < :before")
+    int deleteOlderThan(@Param("granularity") VoteRollup.Granularity granularity, @Param("before") Instant before);
+}
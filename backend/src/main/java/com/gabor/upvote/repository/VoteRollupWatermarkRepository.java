@@ -0,0 +1,26 @@
+package com.gabor.upvote.repository;
+
+import com.gabor.upvote.model.VoteRollupWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VoteRollupWatermarkRepository extends JpaRepository<VoteRollupWatermark, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO vote_rollup_watermark (name, last_id) VALUES (:name, 0) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    // SELECT ... FOR UPDATE: a tranzakció végéig más példány nem aggregálhat
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from VoteRollupWatermark w where w.name = :name")
+    Optional<VoteRollupWatermark> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,65 @@
+package com.gabor.upvote.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.dto.IdeaSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A GET /api/ideas válaszának bájtjai, táblaverziónként egyszer sorosítva. Amíg a verzió
+ * nem változik, a kérés egy memóriamásolás; új verziónál csak egy szál építi újra, a többi megvárja.
+ */
+@Component
+public class ApprovedListingCache {
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile RenderedListing current;
+
+    public ApprovedListingCache(ObjectMapper objectMapper, UpvoteProperties properties) {
+        this.objectMapper = objectMapper;
+        this.enabled = properties.getListing().isResponseCache();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A verzióhoz tartozó kész válasz. A verziót a lista betöltése előtt kell kiolvasni,
+     * így egy közben történt módosítás a következő kérésnél újraépítést okoz.
+     */
+    public RenderedListing get(String version, Supplier<List<IdeaSummary>> loader) {
+        RenderedListing rendered = current;
+        if (rendered != null && rendered.getVersion().equals(version)) {
+            return rendered;
+        }
+        rebuildLock.lock();
+        try {
+            rendered = current;
+            if (rendered != null && rendered.getVersion().equals(version)) {
+                return rendered;
+            }
+            rendered = new RenderedListing(version, serialize(loader.get()));
+            current = rendered;
+            return rendered;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private byte[] serialize(List<IdeaSummary> ideas) {
+        try {
+            return objectMapper.writeValueAsBytes(ideas);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize approved ideas", e);
+        }
+    }
+}
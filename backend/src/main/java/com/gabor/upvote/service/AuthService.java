@@ -3,6 +3,7 @@ package com.gabor.upvote.service;
 import com.gabor.upvote.dto.RegistrationRequest;
 import com.gabor.upvote.model.User;
 import com.gabor.upvote.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,10 +13,14 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository,
+                       PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -37,7 +42,10 @@ public class AuthService {
                 request.getEmail()
         );
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Egy korábban törölt, azonos nevű userről se maradjon cache-elt adat
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getUsername()));
+        return saved;
     }
 
     public User findByUsername(String username) {
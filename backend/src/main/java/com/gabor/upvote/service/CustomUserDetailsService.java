@@ -1,7 +1,14 @@
 package com.gabor.upvote.service;
 
+import com.gabor.upvote.config.UpvoteProperties;
 import com.gabor.upvote.model.User;
 import com.gabor.upvote.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,32 +17,88 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final boolean cacheEnabled;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
-    this.userRepository = userRepository;
-}
+    // Változtathatatlan snapshotok; a Security az átadott UserDetails jelszavát törli (eraseCredentials),
+    // ezért minden hívás saját példányt kap belőlük
+    private final Cache<String, UserSnapshot> cache;
+    // UserChangedEvent-ek száma: a közben betöltött snapshot nem maradhat a cache-ben
+    private final AtomicLong changes = new AtomicLong();
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    UpvoteProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        UpvoteProperties.CacheSettings settings = properties.getAuth().getUserDetailsCache();
+        this.cacheEnabled = settings.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfterWrite(settings.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (!cacheEnabled) {
+            return load(username).toUserDetails();
+        }
+        // Nem cache.get(key, loader): a DB hívás ne a cache belső (synchronized) zárja alatt fusson,
+        // virtuális szálon ez a carrier szálat is lefoglalná
+        UserSnapshot snapshot = cache.getIfPresent(username);
+        if (snapshot == null) {
+            long started = changes.get();
+            snapshot = load(username);
+            cache.put(username, snapshot);
+            // Ha betöltés közben változott egy user, a snapshot régi lehet. Az ellenőrzés a put után,
+            // a számláló léptetése az invalidate előtt fut, így régi snapshot egyik sorrendben sem marad meg
+            if (changes.get() != started) {
+                cache.asMap().remove(username, snapshot);
+            }
+        }
+        return snapshot.toUserDetails();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        changes.incrementAndGet();
+        cache.invalidate(event.getUsername());
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    private UserSnapshot load(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+
+        Set<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toUnmodifiableSet());
+
+        return new UserSnapshot(user.getUsername(), user.getPassword(), user.isEnabled(), authorities);
+    }
+
+    private record UserSnapshot(String username, String password, boolean enabled,
+                                Set<GrantedAuthority> authorities) {
 
-@Override
-public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    User user = userRepository.findByUsername(username)
-        .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-    Set<GrantedAuthority> authorities = user.getRoles().stream()
-        .map(SimpleGrantedAuthority::new)
-        .collect(Collectors.toSet());
-
-    return new org.springframework.security.core.userdetails.User(
-        user.getUsername(),
-        user.getPassword(),
-        user.isEnabled(),
-        true, true, true,
-        authorities
-    );
+        UserDetails toUserDetails() {
+            return new org.springframework.security.core.userdetails.User(
+                    username,
+                    password,
+                    enabled,
+                    true, true, true,
+                    authorities
+            );
+        }
+    }
 }
-}
\ No newline at end of file
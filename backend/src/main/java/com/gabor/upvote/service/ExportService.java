@@ -0,0 +1,78 @@
+package com.gabor.upvote.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+/**
+ * NDJSON export (soronként egy JSON objektum) adatbázis kurzorról olvasva.
+ * Minden kiírt entitást azonnal leválasztunk, így a heap használat a táblamérettől független.
+ */
+@Service
+public class ExportService {
+
+    private final IdeaRepository ideaRepository;
+    private final VoteRecordRepository voteRecordRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public ExportService(IdeaRepository ideaRepository,
+                         VoteRecordRepository voteRecordRepository,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper) {
+        this.ideaRepository = ideaRepository;
+        this.voteRecordRepository = voteRecordRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // Soronként nem flush-olunk, a kimeneti puffer dolgozzon
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportIdeas(OutputStream out) throws IOException {
+        try (Stream<?> ideas = ideaRepository.streamAllOrderById()) {
+            return writeLines(ideas, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportVoteRecords(OutputStream out) throws IOException {
+        try (Stream<?> records = voteRecordRepository.streamAllOrderById()) {
+            return writeLines(records, out);
+        }
+    }
+
+    private long writeLines(Stream<?> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        long[] count = {0};
+        try {
+            rows.forEach(row -> {
+                try {
+                    writer.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(row);
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.flush();
+        return count[0];
+    }
+}
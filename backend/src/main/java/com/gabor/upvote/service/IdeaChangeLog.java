@@ -0,0 +1,142 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.IdeaChanges;
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.model.Idea;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Az ötletlista változásnaplója: minden IdeaService módosítás (IdeaChangedEvent) után nő a verzió,
+ * és ötletenként csak a legutolsó változás marad meg (törlésnél tombstone). Így a
+ * GET /api/ideas/changes?since=... csak a since óta változott ötleteket adja vissza.
+ * <p>
+ * A verzió a folyamat indulási idejéből (µs) indul, így újraindulás után is nő; a korábbi
+ * példány verzióira reset válasz jár. Csak a helyi példány eseményeit látja.
+ */
+@Component
+public class IdeaChangeLog {
+
+    // Ennél több tombstone esetén a legrégebbiek kiesnek, és a náluk régebbi since reset-et kap
+    static final int MAX_TOMBSTONES = 10_000;
+
+    // Minden mező a lock alatt változik: a verzió növelése és a napló írása egy lépés,
+    // különben egy olvasó átléphetne egy még be nem írt verziót
+    private final NavigableMap<Long, Change> changes = new TreeMap<>();
+    private final Map<Long, Change> latestByIdea = new HashMap<>();
+    private final NavigableMap<Long, Long> tombstones = new TreeMap<>();
+    private final StampedLock lock = new StampedLock();
+
+    private volatile long version;
+    // Ennél régebbi since-től nem tudjuk a változásokat
+    private long floor;
+
+    public IdeaChangeLog() {
+        this.version = System.currentTimeMillis() * 1000;
+        this.floor = version;
+    }
+
+    /**
+     * Az ötletlista aktuális verziója (minden módosítással nő).
+     */
+    public long version() {
+        return version;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdeaChanged(IdeaChangedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            for (Idea idea : event.getIdeas()) {
+                apply(event.getType(), idea);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void apply(IdeaChangedEvent.Type type, Idea idea) {
+        switch (type) {
+            // A függő ötletek nem láthatók a szavazóknak, csak a verzió nő (a függő lista változott)
+            case SUBMITTED -> version++;
+            case APPROVED -> record(new Change(++version, idea.getId(), idea));
+            case VOTED -> {
+                Change current = latestByIdea.get(idea.getId());
+                // Felcserélődött szavazatesemény ne írja felül az újabb állapotot
+                if (current == null || current.idea() == null || current.idea().getVotes() <= idea.getVotes()) {
+                    record(new Change(++version, idea.getId(), idea));
+                }
+            }
+            case REJECTED -> {
+                Change tombstone = new Change(++version, idea.getId(), null);
+                record(tombstone);
+                tombstones.put(tombstone.version(), idea.getId());
+                pruneTombstones();
+            }
+        }
+    }
+
+    private void record(Change change) {
+        Change previous = latestByIdea.put(change.ideaId(), change);
+        if (previous != null) {
+            changes.remove(previous.version());
+            tombstones.remove(previous.version());
+        }
+        changes.put(change.version(), change);
+    }
+
+    private void pruneTombstones() {
+        while (tombstones.size() > MAX_TOMBSTONES) {
+            Map.Entry<Long, Long> oldest = tombstones.pollFirstEntry();
+            long tombstoneVersion = oldest.getKey();
+            changes.remove(tombstoneVersion);
+            latestByIdea.remove(oldest.getValue());
+            floor = Math.max(floor, tombstoneVersion);
+        }
+    }
+
+    /**
+     * A since verzió után változott ötletek és tombstone-ok. Ismeretlen (túl régi vagy egy
+     * másik példánytól származó) since esetén reset válasz.
+     */
+    public IdeaChanges since(long since) {
+        long stamp = lock.readLock();
+        try {
+            if (since < floor || since > version) {
+                return new IdeaChanges(version, true, List.of(), List.of());
+            }
+            List<IdeaSummary> changed = new ArrayList<>();
+            List<Long> removed = new ArrayList<>();
+            for (Change change : changes.tailMap(since, false).values()) {
+                if (change.idea() == null) {
+                    removed.add(change.ideaId());
+                } else {
+                    changed.add(IdeaSummary.of(change.idea()));
+                }
+            }
+            return new IdeaChanges(version, false, changed, removed);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return changes.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // idea == null: tombstone
+    private record Change(long version, Long ideaId, Idea idea) { }
+}
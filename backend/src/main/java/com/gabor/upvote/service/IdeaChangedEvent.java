@@ -0,0 +1,46 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.model.Idea;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Az IdeaService minden módosítás után ezt publikálja (commit után kerül kézbesítésre).
+ * Az ideas lista leválasztott másolatokat tartalmaz; REJECTED esetén csak az id kitöltött.
+ * Kötegelt műveleteknél egy esemény több ötletet is hordozhat.
+ */
+public class IdeaChangedEvent {
+
+    public enum Type { SUBMITTED, VOTED, APPROVED, REJECTED }
+
+    private final Type type;
+    private final List<Idea> ideas;
+
+    public IdeaChangedEvent(Type type, List<Idea> ideas) {
+        this.type = type;
+        this.ideas = List.copyOf(ideas);
+    }
+
+    public static IdeaChangedEvent of(Type type, Idea idea) {
+        return new IdeaChangedEvent(type, List.of(idea));
+    }
+
+    // Kötegelt műveletekhez: a jóváhagyott ötletek friss, lekérdezett állapota, leírás nélkül
+    static IdeaChangedEvent ofApproved(Type type, List<IdeaSummary> summaries) {
+        List<Idea> ideas = new ArrayList<>(summaries.size());
+        for (IdeaSummary summary : summaries) {
+            Idea idea = new Idea(summary.getTitle(), null);
+            idea.setId(summary.getId());
+            idea.setApproved(true);
+            idea.setVotes(summary.getVotes());
+            idea.setCreatedAt(summary.getCreatedAt());
+            ideas.add(idea);
+        }
+        return new IdeaChangedEvent(type, ideas);
+    }
+
+    public Type getType() { return type; }
+    public List<Idea> getIdeas() { return ideas; }
+}
@@ -0,0 +1,43 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.IdeaSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset lapozás kurzora: az előző oldal utolsó elemének rendezési kulcsa.
+ * Kifelé átlátszatlan base64url szövegként megy ki.
+ */
+record IdeaCursor(int votes, Instant createdAt, Long id) {
+
+    private static final String VERSION = "1";
+
+    static IdeaCursor after(IdeaSummary idea) {
+        return new IdeaCursor(idea.getVotes(), idea.getCreatedAt(), idea.getId());
+    }
+
+    String encode() {
+        String raw = String.join(":", VERSION, Integer.toString(votes),
+                Long.toString(createdAt.getEpochSecond()), Integer.toString(createdAt.getNano()), Long.toString(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static IdeaCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new IdeaCursor(
+                    Integer.parseInt(parts[1]),
+                    Instant.ofEpochSecond(Long.parseLong(parts[2]), Integer.parseInt(parts[3])),
+                    Long.valueOf(parts[4]));
+        } catch (IllegalArgumentException e) {
+            // a NumberFormatException is ide tartozik
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A jóváhagyott ötletek memóriában tartott, (votes desc, createdAt desc) szerint rendezett listája.
+ * Az IdeaChangedEvent-ek alapján egy-egy bejegyzést O(log n) alatt helyez át, így a
+ * GET /api/ideas nem nyúl az adatbázishoz. Induláskor a repository-ból épül fel.
+ */
+@Component
+public class IdeaLeaderboard implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdeaLeaderboard.class);
+
+    static final Comparator<Entry> ORDER = Comparator
+            .comparingInt(Entry::votes).reversed()
+            .thenComparing(Entry::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Entry::id, Comparator.reverseOrder());
+
+    private final IdeaRepository ideaRepository;
+    private final boolean enabled;
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Írók kizárólagosan; olvasók optimistán, módosítás esetén olvasási zárral újrapróbálva
+    private final StampedLock lock = new StampedLock();
+
+    private volatile boolean ready;
+
+    public IdeaLeaderboard(IdeaRepository ideaRepository, UpvoteProperties properties) {
+        this.ideaRepository = ideaRepository;
+        this.enabled = properties.getLeaderboard().isEnabled();
+    }
+
+    /**
+     * Igaz, ha a lista fel van töltve és ki lehet szolgálni belőle.
+     */
+    public boolean isActive() {
+        return ready;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        List<IdeaSummary> approved = ideaRepository.findApprovedSummaries();
+        long stamp = lock.writeLock();
+        try {
+            ranking.clear();
+            entries.clear();
+            approved.forEach(this::put);
+            ready = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Leaderboard built with {} approved ideas", approved.size());
+    }
+
+    public List<IdeaSummary> snapshot() {
+        return read(ranking, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Legfeljebb limit darab ötlet a kurzor által jelölt elem után (null kurzor: az elejéről).
+     */
+    public List<IdeaSummary> page(IdeaCursor after, int limit) {
+        NavigableSet<Entry> view = after == null
+                ? ranking
+                : ranking.tailSet(new Entry(after.id(), after.votes(), after.createdAt(), null), false);
+        return read(view, limit);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdeaChanged(IdeaChangedEvent event) {
+        if (!ready || event.getType() == IdeaChangedEvent.Type.SUBMITTED) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            for (Idea idea : event.getIdeas()) {
+                apply(event.getType(), idea);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void apply(IdeaChangedEvent.Type type, Idea idea) {
+        switch (type) {
+            case APPROVED -> put(idea);
+            case REJECTED -> remove(idea.getId());
+            case VOTED -> {
+                Entry current = entries.get(idea.getId());
+                // Párhuzamos szavazatok eseményei felcserélődhetnek: régebbi állapot ne írja felül az újabbat
+                if (current != null && current.votes() <= idea.getVotes()) {
+                    put(idea);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private void put(Idea idea) {
+        put(IdeaSummary.of(idea));
+    }
+
+    private void put(IdeaSummary idea) {
+        Entry entry = new Entry(idea.getId(), idea.getVotes(), idea.getCreatedAt(), idea);
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+    }
+
+    private void remove(Long ideaId) {
+        Entry previous = entries.remove(ideaId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    private List<IdeaSummary> read(NavigableSet<Entry> view, int limit) {
+        long stamp = lock.tryOptimisticRead();
+        List<IdeaSummary> result = copy(view, limit);
+        if (lock.validate(stamp)) {
+            return result;
+        }
+        stamp = lock.readLock();
+        try {
+            return copy(view, limit);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static List<IdeaSummary> copy(NavigableSet<Entry> view, int limit) {
+        List<IdeaSummary> result = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : view) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(entry.summary());
+        }
+        return result;
+    }
+
+    record Entry(Long id, int votes, Instant createdAt, IdeaSummary summary) { }
+}
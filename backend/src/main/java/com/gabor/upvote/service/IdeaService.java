@@ -1,82 +1,477 @@
 package com.gabor.upvote.service;
 
+        import com.gabor.upvote.config.UpvoteProperties;
+        import com.gabor.upvote.config.VoteMode;
+        import com.gabor.upvote.dto.IdeaBatchResult;
+        import com.gabor.upvote.dto.IdeaChanges;
+        import com.gabor.upvote.dto.IdeaPage;
+        import com.gabor.upvote.dto.IdeaSummary;
+        import com.gabor.upvote.dto.TrendingIdea;
+        import com.gabor.upvote.dto.VoteSeries;
         import com.gabor.upvote.model.Idea;
         import com.gabor.upvote.model.VoteRecord;
         import com.gabor.upvote.repository.IdeaRepository;
+        import com.gabor.upvote.repository.VoteGuardRepository;
         import com.gabor.upvote.repository.VoteRecordRepository;
+        import com.gabor.upvote.service.ServiceMetrics.VoteOutcome;
+        import org.springframework.context.ApplicationEventPublisher;
+        import org.springframework.dao.DataIntegrityViolationException;
+        import org.springframework.data.domain.PageRequest;
+        import org.springframework.data.domain.Pageable;
         import org.springframework.stereotype.Service;
         import org.springframework.transaction.annotation.Transactional;
+        import org.springframework.transaction.support.TransactionSynchronization;
+        import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+        import java.time.Instant;
+        import java.util.ArrayList;
+        import java.util.Collection;
+        import java.util.HashSet;
+        import java.util.LinkedHashSet;
         import java.util.List;
         import java.util.NoSuchElementException;
         import java.util.Optional;
+        import java.util.Set;
+        import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class IdeaService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Kötegelt moderálásnál egy IN lista mérete
+    static final int MODERATION_CHUNK_SIZE = 500;
+
+    // Példányonként más, így egy másik node (vagy újraindulás előtti) ETag-je sosem egyezik
+    private final String etagPrefix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
     private final IdeaRepository ideaRepository;
     private final VoteRecordRepository voteRecordRepository;
+    private final VoteGuardRepository voteGuardRepository;
+    private final VoteCounterBuffer voteCounterBuffer;
+    private final VoteSlotCounter voteSlotCounter;
+    private final IdeaLeaderboard leaderboard;
+    private final IdeaTrending trending;
+    private final VoteRollups rollups;
+    private final VoteRecordPartitions partitions;
+    private final IdeaChangeLog changeLog;
+    private final ApprovedListingCache listingCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UpvoteProperties properties;
+    private final ServiceMetrics metrics;
 
-    public IdeaService(IdeaRepository ideaRepository, VoteRecordRepository voteRecordRepository) {
+    public IdeaService(IdeaRepository ideaRepository,
+                       VoteRecordRepository voteRecordRepository,
+                       VoteGuardRepository voteGuardRepository,
+                       VoteCounterBuffer voteCounterBuffer,
+                       VoteSlotCounter voteSlotCounter,
+                       IdeaLeaderboard leaderboard,
+                       IdeaTrending trending,
+                       VoteRollups rollups,
+                       VoteRecordPartitions partitions,
+                       IdeaChangeLog changeLog,
+                       ApprovedListingCache listingCache,
+                       ApplicationEventPublisher eventPublisher,
+                       UpvoteProperties properties,
+                       ServiceMetrics metrics) {
         this.ideaRepository = ideaRepository;
         this.voteRecordRepository = voteRecordRepository;
+        this.voteGuardRepository = voteGuardRepository;
+        this.voteCounterBuffer = voteCounterBuffer;
+        this.voteSlotCounter = voteSlotCounter;
+        this.leaderboard = leaderboard;
+        this.trending = trending;
+        this.rollups = rollups;
+        this.partitions = partitions;
+        this.changeLog = changeLog;
+        this.listingCache = listingCache;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.metrics = metrics;
     }
 
     public Idea submitIdea(Idea idea) {
         idea.setApproved(false);
         idea.setVotes(0);
-        return ideaRepository.save(idea);
+        Idea saved = ideaRepository.save(idea);
+        publish(IdeaChangedEvent.Type.SUBMITTED, saved);
+        return saved;
+    }
+
+    public List<IdeaSummary> listApprovedIdeas() {
+        return metrics.listApproved().record(() -> {
+            if (leaderboard.isActive()) {
+                return leaderboard.snapshot();
+            }
+            return ideaRepository.findApprovedSummaries();
+        });
+    }
+
+    /**
+     * A listázások erős ETag-je a tábla aktuális verziójából, vagy null, ha ki van kapcsolva.
+     * Az adatok lekérdezése előtt kell kiolvasni: így az ETag legfeljebb régebbi lehet a tartalomnál.
+     */
+    public String listingETag() {
+        if (!properties.getListing().isEtag()) {
+            return null;
+        }
+        return etag(boardVersion());
+    }
+
+    /**
+     * A kész válasz saját verziójának ETag-je: a test és az ETag így biztosan ugyanahhoz a verzióhoz tartozik.
+     */
+    public String listingETag(RenderedListing rendered) {
+        if (!properties.getListing().isEtag()) {
+            return null;
+        }
+        return etag(rendered.getVersion());
+    }
+
+    private String etag(String version) {
+        return "\"" + etagPrefix + "-" + version + "\"";
     }
 
-    public List<Idea> listApprovedIdeas() {
-        return ideaRepository.findByApprovedTrueOrderByVotesDescCreatedAtDesc();
+    public boolean isListingRendered() {
+        return listingCache.isEnabled();
     }
 
-    public List<Idea> listPendingIdeas() {
-        return ideaRepository.findByApprovedFalseOrderByCreatedAtDesc();
+    // Write-behind és striped módban a flush / fold is módosítja az adatbázisból olvasott szavazatszámokat
+    private String boardVersion() {
+        return changeLog.version() + "-" + (voteCounterBuffer.flushCount() + voteSlotCounter.foldCount());
+    }
+
+    /**
+     * A jóváhagyott lista kész JSON válasza, vagy null, ha a válasz cache ki van kapcsolva.
+     */
+    public RenderedListing renderApprovedIdeas() {
+        if (!listingCache.isEnabled()) {
+            return null;
+        }
+        return listingCache.get(boardVersion(), this::listApprovedIdeas);
+    }
+
+    /**
+     * Az utóbbi idők legfelkapottabb ötletei, felezési idővel lecsengő szavazatok alapján.
+     */
+    public List<TrendingIdea> trendingIdeas(int limit) {
+        if (!trending.isEnabled()) {
+            throw new NoSuchElementException("Trending is disabled");
+        }
+        return trending.top(checkPageSize(limit));
+    }
+
+    /**
+     * Egy ötlet szavazatai időszeletenként, az előre aggregált rollupokból (a szeletek számával arányos költség).
+     */
+    public VoteSeries voteSeries(Long ideaId, boolean includePending, String granularity, Instant from, Instant to) {
+        ideaRepository.findById(ideaId)
+                .filter(found -> includePending || found.isApproved())
+                .orElseThrow(() -> new NoSuchElementException("Idea not found"));
+        return rollups.series(ideaId, granularity, from, to);
+    }
+
+    public List<IdeaSummary> listPendingIdeas() {
+        return ideaRepository.findPendingSummaries();
+    }
+
+    /**
+     * Egy ötlet a leírással együtt. Jóvá nem hagyott ötletet csak az admin láthat, másnak nem létezik.
+     */
+    public Idea getIdea(Long ideaId, boolean includePending) {
+        Idea idea = ideaRepository.findById(ideaId)
+                .filter(found -> includePending || found.isApproved())
+                .orElseThrow(() -> new NoSuchElementException("Idea not found"));
+        if (properties.getVotes().getMode() == VoteMode.STRIPED) {
+            // A részleteknél a pontos szám kell, a fold még nem írta vissza a slotokat
+            return copyOf(idea, (int) (idea.getVotes() + voteSlotCounter.pending(ideaId)));
+        }
+        return idea;
+    }
+
+    /**
+     * A since verzió óta változott jóváhagyott ötletek és törlések (a teljes lista újratöltése helyett).
+     */
+    public IdeaChanges changesSince(long since) {
+        return changeLog.since(since);
+    }
+
+    public IdeaPage pageApprovedIdeas(String cursor, int size) {
+        IdeaCursor after = cursor != null ? IdeaCursor.decode(cursor) : null;
+        int limit = checkPageSize(size);
+        // Egy elemmel többet kérünk, így tudjuk, van-e következő oldal
+        Pageable fetch = PageRequest.of(0, limit + 1);
+
+        List<IdeaSummary> items;
+        if (leaderboard.isActive()) {
+            items = leaderboard.page(after, limit + 1);
+        } else if (after == null) {
+            items = ideaRepository.findApprovedFirstPage(fetch);
+        } else {
+            items = ideaRepository.findApprovedPageAfter(after.votes(), after.createdAt(), after.id(), fetch);
+        }
+        return toPage(items, limit);
+    }
+
+    public IdeaPage pagePendingIdeas(String cursor, int size) {
+        IdeaCursor after = cursor != null ? IdeaCursor.decode(cursor) : null;
+        int limit = checkPageSize(size);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+
+        List<IdeaSummary> items = after == null
+                ? ideaRepository.findPendingFirstPage(fetch)
+                : ideaRepository.findPendingPageAfter(after.createdAt(), after.id(), fetch);
+        return toPage(items, limit);
+    }
+
+    private static int checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    private static IdeaPage toPage(List<IdeaSummary> items, int limit) {
+        if (items.size() <= limit) {
+            return new IdeaPage(items, null);
+        }
+        List<IdeaSummary> page = items.subList(0, limit);
+        return new IdeaPage(page, IdeaCursor.after(page.get(limit - 1)).encode());
     }
 
     @Transactional
     public Idea approveIdea(Long ideaId) {
         Idea idea = ideaRepository.findById(ideaId).orElseThrow(() -> new NoSuchElementException("Idea not found"));
         idea.setApproved(true);
-        return ideaRepository.save(idea);
+        Idea saved = ideaRepository.save(idea);
+        publish(IdeaChangedEvent.Type.APPROVED, saved);
+        return saved;
     }
 
     @Transactional
     public void rejectIdea(Long ideaId) {
         ideaRepository.deleteById(ideaId);
+        Idea removed = new Idea();
+        removed.setId(ideaId);
+        publish(IdeaChangedEvent.Type.REJECTED, removed);
+    }
+
+    /**
+     * Több függő ötlet jóváhagyása egy tranzakcióban, darabolt UPDATE ... WHERE id IN (...) utasításokkal.
+     * A listázásra épülő cache-ek (ranglista, change log, ETag, válasz cache) egyetlen eseményt kapnak.
+     */
+    @Transactional
+    public IdeaBatchResult approveIdeas(Collection<Long> ideaIds) {
+        List<Long> approved = new ArrayList<>();
+        for (List<Long> chunk : chunks(ideaIds)) {
+            List<Long> pending = ideaRepository.findPendingIdsIn(chunk);
+            if (!pending.isEmpty()) {
+                ideaRepository.approveAllByIdIn(pending);
+                approved.addAll(pending);
+            }
+        }
+        if (!approved.isEmpty()) {
+            List<IdeaSummary> summaries = new ArrayList<>(approved.size());
+            for (List<Long> chunk : chunks(approved)) {
+                summaries.addAll(ideaRepository.findSummariesByIdIn(chunk));
+            }
+            eventPublisher.publishEvent(IdeaChangedEvent.ofApproved(IdeaChangedEvent.Type.APPROVED, summaries));
+        }
+        return batchResult(ideaIds, approved);
+    }
+
+    /**
+     * Több ötlet törlése egy tranzakcióban, darabolt DELETE ... WHERE id IN (...) utasításokkal, egy eseménnyel.
+     */
+    @Transactional
+    public IdeaBatchResult rejectIdeas(Collection<Long> ideaIds) {
+        List<Long> removed = new ArrayList<>();
+        for (List<Long> chunk : chunks(ideaIds)) {
+            List<Long> existing = ideaRepository.findExistingIdsIn(chunk);
+            if (!existing.isEmpty()) {
+                ideaRepository.deleteAllByIdIn(existing);
+                removed.addAll(existing);
+            }
+        }
+        if (!removed.isEmpty()) {
+            List<Idea> tombstones = new ArrayList<>(removed.size());
+            for (Long ideaId : removed) {
+                Idea idea = new Idea();
+                idea.setId(ideaId);
+                tombstones.add(idea);
+            }
+            eventPublisher.publishEvent(new IdeaChangedEvent(IdeaChangedEvent.Type.REJECTED, tombstones));
+        }
+        return batchResult(ideaIds, removed);
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ideaIds) {
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ideaIds));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MODERATION_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + MODERATION_CHUNK_SIZE, distinct.size())));
+        }
+        return chunks;
+    }
+
+    private static IdeaBatchResult batchResult(Collection<Long> requested, List<Long> processed) {
+        Set<Long> done = new HashSet<>(processed);
+        List<Long> skipped = new ArrayList<>();
+        for (Long ideaId : new LinkedHashSet<>(requested)) {
+            if (!done.contains(ideaId)) {
+                skipped.add(ideaId);
+            }
+        }
+        return new IdeaBatchResult(processed, skipped);
     }
 
     @Transactional
     public Idea vote(Long ideaId, String username, String sessionId) {  // ⬅️ username paraméter hozzáadva!
-        // Ellenőrizzük, hogy ez a USER szavazott-e már
-        if (voteRecordRepository.existsByUsername(username)) {
+        if (properties.getVotes().getMode() == VoteMode.ATOMIC) {
+            return voted(voteAtomic(ideaId, username, sessionId));
+        }
+        if (properties.getVotes().getMode() == VoteMode.STRIPED) {
+            return voted(voteStriped(ideaId, username, sessionId));
+        }
+
+        // Ellenőrizzük, hogy ez a USER szavazott-e már. Particionált vote_records mellett ez minden havi
+        // partíció indexét érintené, ott a guard sor (claimVote) egyetlen kulcs szerinti olvasással dönt
+        if (!properties.getVotes().getPartitioning().isEnabled() && voteRecordRepository.existsByUsername(username)) {
+            metrics.voteRejected(VoteOutcome.DUPLICATE);
             Optional<VoteRecord> existingVote = voteRecordRepository.findByUsername(username);
             if (existingVote.isPresent()) {
-                Idea votedIdea = ideaRepository.findById(existingVote.get().getIdeaId())
-                        .orElse(null);
-                String votedTitle = votedIdea != null ? votedIdea.getTitle() : "ismeretlen ötlet";
-                throw new IllegalStateException("Már szavaztál erre az ötletre: " + votedTitle);
+                throw alreadyVoted(existingVote.get().getIdeaId());
             }
             throw new IllegalStateException("Már leadtad a szavazatodat");
         }
 
-        Idea idea = ideaRepository.findById(ideaId)
-                .orElseThrow(() -> new NoSuchElementException("Idea not found"));
+        Idea idea = ideaRepository.findById(ideaId).orElseThrow(this::voteTargetNotFound);
 
         if (!idea.isApproved()) {
-            throw new IllegalStateException("Ez az ötlet még nincs jóváhagyva");
+            throw voteTargetNotApproved();
         }
 
         VoteRecord record = new VoteRecord(ideaId, username, sessionId);  // ⬅️ username hozzáadva!
+        claimVote(username, ideaId, record.getVotedAt());
         voteRecordRepository.save(record);
 
+        if (properties.getVotes().getMode() == VoteMode.WRITE_BEHIND) {
+            return voted(countWriteBehind(idea));
+        }
+
         idea.setVotes(idea.getVotes() + 1);
-        return ideaRepository.save(idea);
+        return voted(ideaRepository.save(idea));
+    }
+
+    private Idea voted(Idea idea) {
+        metrics.voteAccepted();
+        publish(IdeaChangedEvent.Type.VOTED, idea);
+        eventPublisher.publishEvent(VotesCastEvent.of(IdeaSummary.of(idea), Instant.now()));
+        return idea;
+    }
+
+    private void publish(IdeaChangedEvent.Type type, Idea idea) {
+        eventPublisher.publishEvent(IdeaChangedEvent.of(type, copyOf(idea, idea.getVotes())));
+    }
+
+    // Guard sor + atomikus növelés: a sikeres út nem olvas előre, a lookup-ok csak hiba esetén futnak
+    private Idea voteAtomic(Long ideaId, String username, String sessionId) {
+        Instant votedAt = Instant.now();
+        claimVote(username, ideaId, votedAt);
+
+        if (ideaRepository.incrementVotesIfApproved(ideaId) == 0) {
+            // A kivétel a guard sort is visszagörgeti
+            ideaRepository.findById(ideaId).orElseThrow(this::voteTargetNotFound);
+            throw voteTargetNotApproved();
+        }
+
+        voteRecordRepository.insertIfAbsent(ideaId, username, sessionId, votedAt);
+        return ideaRepository.findById(ideaId)
+                .orElseThrow(() -> new NoSuchElementException("Idea not found"));
+    }
+
+    // Az ideas sort csak olvassuk (zár nélkül), a növelés egy véletlen slot sorát éri
+    private Idea voteStriped(Long ideaId, String username, String sessionId) {
+        Instant votedAt = Instant.now();
+        claimVote(username, ideaId, votedAt);
+
+        Idea idea = ideaRepository.findById(ideaId).orElseThrow(this::voteTargetNotFound);
+        if (!idea.isApproved()) {
+            // A kivétel a guard sort is visszagörgeti
+            throw voteTargetNotApproved();
+        }
+
+        voteRecordRepository.insertIfAbsent(ideaId, username, sessionId, votedAt);
+        voteSlotCounter.increment(ideaId);
+        return copyOf(idea, (int) (idea.getVotes() + voteSlotCounter.pending(ideaId)));
+    }
+
+    private void claimVote(String username, Long ideaId, Instant votedAt) {
+        int claimed;
+        try {
+            claimed = voteGuardRepository.claim(username, ideaId, votedAt);
+        } catch (DataIntegrityViolationException e) {
+            // Ugyanennek a usernek egy párhuzamos, még nem commitolt szavazata
+            claimed = 0;
+        }
+        if (claimed == 0) {
+            metrics.voteRejected(VoteOutcome.DUPLICATE);
+            throw voteGuardRepository.findById(username)
+                    .map(guard -> alreadyVoted(guard.getIdeaId()))
+                    .orElseGet(() -> new IllegalStateException("Már leadtad a szavazatodat"));
+        }
+    }
+
+    private NoSuchElementException voteTargetNotFound() {
+        metrics.voteRejected(VoteOutcome.NOT_FOUND);
+        return new NoSuchElementException("Idea not found");
+    }
+
+    private IllegalStateException voteTargetNotApproved() {
+        metrics.voteRejected(VoteOutcome.UNAPPROVED);
+        return new IllegalStateException("Ez az ötlet még nincs jóváhagyva");
+    }
+
+    private IllegalStateException alreadyVoted(Long votedIdeaId) {
+        String votedTitle = ideaRepository.findById(votedIdeaId)
+                .map(Idea::getTitle)
+                .orElse("ismeretlen ötlet");
+        return new IllegalStateException("Már szavaztál erre az ötletre: " + votedTitle);
+    }
+
+    // Az ideas sort nem írjuk: a növelést commit után a VoteCounterBuffer kapja meg.
+    // A válaszban a még ki nem írt szavazatokat is beleszámoljuk.
+    private Idea countWriteBehind(Idea idea) {
+        Long ideaId = idea.getId();
+        int votes = (int) (idea.getVotes() + voteCounterBuffer.pending(ideaId) + 1);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    voteCounterBuffer.increment(ideaId);
+                }
+            });
+        } else {
+            voteCounterBuffer.increment(ideaId);
+        }
+        return copyOf(idea, votes);
+    }
+
+    // Leválasztott másolat, hogy a managed entitás módosítása ne kerüljön flush-ra
+    private static Idea copyOf(Idea idea, int votes) {
+        Idea copy = new Idea(idea.getTitle(), idea.getDescription());
+        copy.setId(idea.getId());
+        copy.setApproved(idea.isApproved());
+        copy.setCreatedAt(idea.getCreatedAt());
+        copy.setVotes(votes);
+        return copy;
     }
 
+    // A lecsatolt (archivált) vote_records partíciók szavazataival együtt; particionálva csak a csatolt hónapokat olvassa
     public long votesForIdea(Long ideaId) {
-        return voteRecordRepository.countByIdeaId(ideaId);
+        return partitions.attachedFrom()
+                .map(since -> voteRecordRepository.countIncludingArchivedSince(ideaId, since))
+                .orElseGet(() -> voteRecordRepository.countIncludingArchived(ideaId));
     }
 }
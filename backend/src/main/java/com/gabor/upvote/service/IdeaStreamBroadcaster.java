@@ -0,0 +1,276 @@
+package com.gabor.upvote.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.dto.IdeaUpdate;
+import com.gabor.upvote.model.Idea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A /api/ideas/stream SSE feliratkozóinak kiszolgálása.
+ * <p>
+ * Az IdeaChangedEvent-ekből ötletenként csak a legutolsó állapot marad meg; egy ütemező szál
+ * tick-enként (alapból 250 ms) egyetlen "ideas" eseményben küldi ki az összes változott ötletet,
+ * így egy népszerű ötlet tick-enként legfeljebb egyszer szerepel. A payloadot egyszer sorosítjuk; a tick
+ * csak a feliratkozók saját, korlátos soraiba tesz, a küldést néhány szál végzi. Egy lassú (beakadt
+ * írású) kliens így csak a saját sorát tölti meg: ha az megtelik, lezárjuk, és az EventSource
+ * újracsatlakozik. A kapcsolatok aszinkron servlet kérések, tétlen feliratkozó nem foglal szálat.
+ * <p>
+ * Csak a helyi példány eseményeit látja (több backend példánynál a többi node változásai kimaradnak).
+ */
+@Component
+public class IdeaStreamBroadcaster implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(IdeaStreamBroadcaster.class);
+
+    private final ObjectMapper objectMapper;
+    private final UpvoteProperties.Stream settings;
+
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, IdeaUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile ScheduledExecutorService ticker;
+    private volatile ExecutorService senders;
+    private long lastSentNanos = System.nanoTime();
+
+    public IdeaStreamBroadcaster(ObjectMapper objectMapper, UpvoteProperties properties) {
+        this.objectMapper = objectMapper;
+        this.settings = properties.getStream();
+    }
+
+    /**
+     * Új feliratkozó; üres, ha elértük a maximális feliratkozószámot.
+     */
+    public Optional<SseEmitter> subscribe() {
+        if (subscribers.size() >= settings.getMaxSubscribers()) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(settings.getTimeout().toMillis());
+        register(emitter);
+        return Optional.of(emitter);
+    }
+
+    void register(SseEmitter emitter) {
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.put(emitter, new Subscriber(emitter));
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdeaChanged(IdeaChangedEvent event) {
+        // Beküldött ötlet még nem látható, feliratkozó nélkül pedig nincs kinek gyűjteni
+        if (event.getType() == IdeaChangedEvent.Type.SUBMITTED || subscribers.isEmpty()) {
+            return;
+        }
+        for (Idea idea : event.getIdeas()) {
+            IdeaUpdate update = event.getType() == IdeaChangedEvent.Type.REJECTED
+                    ? IdeaUpdate.removed(idea.getId())
+                    : IdeaUpdate.changed(idea.getId(), idea.getVotes(), idea.isApproved());
+            pending.merge(idea.getId(), update, IdeaUpdate::merge);
+        }
+    }
+
+    /**
+     * Egy tick: az összegyűlt változások kiküldése (vagy heartbeat). Az ütemező szálon fut, és nem
+     * várja meg a küldéseket.
+     *
+     * @return a kiküldött ötletváltozások száma
+     */
+    int tick() {
+        List<IdeaUpdate> updates = drainPending();
+        if (subscribers.isEmpty()) {
+            return 0;
+        }
+        if (!updates.isEmpty()) {
+            String payload;
+            try {
+                payload = objectMapper.writeValueAsString(updates);
+            } catch (JsonProcessingException e) {
+                log.error("Could not serialize idea updates", e);
+                return 0;
+            }
+            String id = Long.toString(sequence.incrementAndGet());
+            broadcast(emitter -> emitter.send(SseEmitter.event().id(id).name("ideas").data(payload)));
+            lastSentNanos = System.nanoTime();
+            return updates.size();
+        }
+        if (System.nanoTime() - lastSentNanos >= settings.getHeartbeat().toNanos()) {
+            broadcast(emitter -> emitter.send(SseEmitter.event().comment("heartbeat")));
+            lastSentNanos = System.nanoTime();
+        }
+        return 0;
+    }
+
+    private List<IdeaUpdate> drainPending() {
+        List<IdeaUpdate> updates = new ArrayList<>(pending.size());
+        for (Long ideaId : pending.keySet()) {
+            IdeaUpdate update = pending.remove(ideaId);
+            if (update != null) {
+                updates.add(update);
+            }
+        }
+        return updates;
+    }
+
+    private void broadcast(Send send) {
+        ExecutorService pool = senders;
+        for (Subscriber subscriber : subscribers.values()) {
+            if (pool == null) {
+                deliver(subscriber, send);
+            } else if (subscriber.queued.incrementAndGet() > settings.getSendQueue()) {
+                drop(subscriber);
+            } else {
+                subscriber.queue.add(send);
+                schedule(subscriber, pool);
+            }
+        }
+    }
+
+    // Feliratkozónként egyszerre legfeljebb egy küldő szál, így az események sorrendje megmarad
+    private void schedule(Subscriber subscriber, ExecutorService pool) {
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pool.execute(() -> drain(subscriber, pool));
+        } catch (RejectedExecutionException e) {
+            // Leállás közben
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber, ExecutorService pool) {
+        Send send;
+        while (!subscriber.dropped && (send = subscriber.queue.poll()) != null) {
+            subscriber.queued.decrementAndGet();
+            if (!deliver(subscriber, send)) {
+                return;
+            }
+        }
+        if (subscriber.dropped) {
+            // A lezárás csak itt, küldés után: a beakadt send alatt a complete is várakozna
+            subscriber.queue.clear();
+            subscriber.emitter.complete();
+            return;
+        }
+        subscriber.scheduled.set(false);
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber, pool);
+        }
+    }
+
+    // A lassú kliens lemarad: a tick szálon nem zárjuk le, azt a küldő szála teszi meg
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber.emitter) != null) {
+            log.debug("Dropping idea stream subscriber that fell {} events behind", settings.getSendQueue());
+        }
+        subscriber.dropped = true;
+    }
+
+    private boolean deliver(Subscriber subscriber, Send send) {
+        try {
+            send.to(subscriber.emitter);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Lezárt vagy megszakadt kapcsolat
+            subscribers.remove(subscriber.emitter);
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Send> queue = new ConcurrentLinkedQueue<>();
+        // A sorban álló (még ki nem küldött) események száma
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Send {
+        void to(SseEmitter emitter) throws IOException;
+    }
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.warn("Idea stream tick failed", e);
+        }
+    }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        AtomicInteger senderIds = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(settings.getSenderThreads(), r -> {
+            Thread thread = new Thread(r, "idea-stream-send-" + senderIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idea-stream-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getTick().toMillis();
+        scheduler.scheduleWithFixedDelay(this::tickQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        ticker = scheduler;
+    }
+
+    // A web szerver (graceful) leállítása előtt lezárjuk a nyitott streameket, hogy ne tartsák fel
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = ticker;
+        if (scheduler == null) {
+            return;
+        }
+        ticker = null;
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        senders = null;
+        subscribers.keySet().forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ticker != null;
+    }
+}
@@ -0,0 +1,222 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.dto.TrendingIdea;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * "Trending" rangsor: a szavazatok exponenciálisan lecsengő súllyal számítanak (felezési idő, alapból 6 óra).
+ * <p>
+ * A pontszámot log térben, egy rögzített epoch-hoz képest tartjuk: egy t időpontú szavazat log súlya
+ * λ·(t − epoch), az ötlet pontszáma ezek log-sum-exp összege. A mostani lecsengés minden ötletet ugyanazzal
+ * a szorzóval érint, így a sorrendhez nincs szükség időszakos újraszámolásra, egy szavazat O(log n).
+ * Induláskor egyszer a horizonton belüli vote_records sorokból épül fel, utána csak eseményekből.
+ * <p>
+ * Csak a helyi példány szavazatait látja (több backend példánynál a többi node szavazatai az újraindulásig kimaradnak).
+ */
+@Component
+public class IdeaTrending implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdeaTrending.class);
+
+    private static final int SUMMARY_CHUNK_SIZE = 500;
+
+    static final Comparator<Entry> ORDER = Comparator
+            .comparingDouble(Entry::logScore).reversed()
+            .thenComparing(Entry::id, Comparator.reverseOrder());
+
+    private final IdeaRepository ideaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final UpvoteProperties.Trending settings;
+    private final Instant epoch;
+    // λ másodpercenként: ln 2 / felezési idő
+    private final double rate;
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final StampedLock lock = new StampedLock();
+
+    @Autowired
+    public IdeaTrending(IdeaRepository ideaRepository, JdbcTemplate jdbcTemplate, UpvoteProperties properties) {
+        this(ideaRepository, jdbcTemplate, properties, Instant.now());
+    }
+
+    IdeaTrending(IdeaRepository ideaRepository, JdbcTemplate jdbcTemplate, UpvoteProperties properties, Instant epoch) {
+        this.ideaRepository = ideaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = properties.getTrending();
+        this.epoch = epoch;
+        this.rate = Math.log(2) / settings.getHalfLife().toMillis() * 1000;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (settings.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Felépítés a horizonton belüli szavazatokból; ennél régebbi szavazat súlya már elhanyagolható.
+     */
+    public void rebuild() {
+        Map<Long, Double> scores = new HashMap<>();
+        Timestamp since = Timestamp.from(Instant.now().minus(settings.getHorizon()));
+        jdbcTemplate.query("SELECT idea_id, voted_at FROM vote_records WHERE voted_at >= ?", row -> {
+            double weight = logWeight(row.getTimestamp(2).toInstant());
+            scores.merge(row.getLong(1), weight, IdeaTrending::logAddExp);
+        }, since);
+
+        List<Long> ideaIds = new ArrayList<>(scores.keySet());
+        List<IdeaSummary> summaries = new ArrayList<>(ideaIds.size());
+        for (int from = 0; from < ideaIds.size(); from += SUMMARY_CHUNK_SIZE) {
+            summaries.addAll(ideaRepository.findSummariesByIdIn(
+                    ideaIds.subList(from, Math.min(from + SUMMARY_CHUNK_SIZE, ideaIds.size()))));
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            ranking.clear();
+            entries.clear();
+            // Törölt ötletek szavazatai kimaradnak: nincs hozzájuk summary
+            summaries.forEach(summary -> put(new Entry(summary.getId(), scores.get(summary.getId()), summary)));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Trending ranking built with {} ideas voted within {}", summaries.size(), settings.getHorizon());
+    }
+
+    /**
+     * A legfeljebb limit darab legfelkapottabb ötlet, a mostani időpontra lecsengetett pontszámmal.
+     */
+    public List<TrendingIdea> top(int limit) {
+        long stamp = lock.tryOptimisticRead();
+        List<Entry> result = copy(limit);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = copy(limit);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        double now = logWeight(Instant.now());
+        List<TrendingIdea> trending = new ArrayList<>(result.size());
+        for (Entry entry : result) {
+            trending.add(new TrendingIdea(entry.summary(), Math.exp(entry.logScore() - now)));
+        }
+        return trending;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVotesCast(VotesCastEvent event) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            for (VotesCastEvent.Cast cast : event.getCasts()) {
+                apply(cast);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdeaChanged(IdeaChangedEvent event) {
+        if (!settings.isEnabled() || event.getType() != IdeaChangedEvent.Type.REJECTED) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            for (Idea idea : event.getIdeas()) {
+                Entry previous = entries.remove(idea.getId());
+                if (previous != null) {
+                    ranking.remove(previous);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void apply(VotesCastEvent.Cast cast) {
+        IdeaSummary idea = cast.idea();
+        double weight = logWeight(cast.votedAt());
+        Entry current = entries.get(idea.getId());
+        if (current == null) {
+            put(new Entry(idea.getId(), weight, idea));
+            return;
+        }
+        // Felcserélődött események: a régebbi állapot ne írja felül az újabb szavazatszámot
+        IdeaSummary summary = current.summary().getVotes() <= idea.getVotes() ? idea : current.summary();
+        put(new Entry(idea.getId(), logAddExp(current.logScore(), weight), summary));
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+    }
+
+    private List<Entry> copy(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, 64));
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (seen.add(entry.id())) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private double logWeight(Instant votedAt) {
+        return rate * Duration.between(epoch, votedAt).toMillis() / 1000;
+    }
+
+    // log(e^a + e^b) túlcsordulás nélkül
+    static double logAddExp(double a, double b) {
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    record Entry(Long id, double logScore, IdeaSummary summary) { }
+}
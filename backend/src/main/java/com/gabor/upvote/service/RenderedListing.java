@@ -0,0 +1,48 @@
+package com.gabor.upvote.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Egy listázás kész JSON válasza egy adott táblaverzióhoz; a gzip változat első kéréskor készül el.
+ * A tömböket nem szabad módosítani.
+ */
+public class RenderedListing {
+
+    private final String version;
+    private final byte[] json;
+    private volatile byte[] gzip;
+
+    RenderedListing(String version, byte[] json) {
+        this.version = version;
+        this.json = json;
+    }
+
+    public String getVersion() { return version; }
+
+    public byte[] json() {
+        return json;
+    }
+
+    public byte[] gzip() {
+        byte[] compressed = gzip;
+        if (compressed == null) {
+            // Párhuzamos első kéréseknél többször is elkészülhet, az eredmény ugyanaz
+            compressed = compress(json);
+            gzip = compressed;
+        }
+        return compressed;
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,88 @@
+package com.gabor.upvote.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A service réteg időzítői és a szavazatok kimenetelének számlálói.
+ * A percentiliseket és a histogramot a management.metrics.distribution beállítások adják (upvote.* prefix).
+ * A tranzakciós hívások (vote, approve, register) időzítőit a controller méri a proxy körül, így a commit is benne van.
+ */
+@Component
+public class ServiceMetrics {
+
+    public enum VoteOutcome {
+        ACCEPTED, DUPLICATE, UNAPPROVED, NOT_FOUND
+    }
+
+    private final Timer vote;
+    private final Timer listApproved;
+    private final Timer approve;
+    private final Timer register;
+    private final Map<VoteOutcome, Counter> voteOutcomes = new EnumMap<>(VoteOutcome.class);
+
+    public ServiceMetrics(MeterRegistry registry) {
+        this.vote = timer(registry, "upvote.ideas.vote", "IdeaService.vote");
+        this.listApproved = timer(registry, "upvote.ideas.list.approved", "IdeaService.listApprovedIdeas");
+        this.approve = timer(registry, "upvote.ideas.approve", "IdeaService.approveIdea");
+        this.register = timer(registry, "upvote.auth.register", "AuthService.register");
+        for (VoteOutcome outcome : VoteOutcome.values()) {
+            voteOutcomes.put(outcome, Counter.builder("upvote.votes")
+                    .description("Szavazási kísérletek kimenetel szerint")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description) {
+        return Timer.builder(name).description(description).register(registry);
+    }
+
+    public Timer vote() {
+        return vote;
+    }
+
+    public Timer listApproved() {
+        return listApproved;
+    }
+
+    public Timer approve() {
+        return approve;
+    }
+
+    public Timer register() {
+        return register;
+    }
+
+    // Az elfogadott szavazatot csak commit után számoljuk, a visszagörgetett nem számít
+    public void voteAccepted() {
+        votesAccepted(1);
+    }
+
+    public void voteRejected(VoteOutcome outcome) {
+        voteOutcomes.get(outcome).increment();
+    }
+
+    // Kötegelt írás: egy tranzakció, több szavazat
+    public void votesAccepted(int count) {
+        Counter accepted = voteOutcomes.get(VoteOutcome.ACCEPTED);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accepted.increment(count);
+                }
+            });
+        } else {
+            accepted.increment(count);
+        }
+    }
+}
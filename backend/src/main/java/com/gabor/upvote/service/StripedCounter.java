@@ -0,0 +1,48 @@
+package com.gabor.upvote.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LongAdder-szerű, szálanként szétosztott számláló, ami - a LongAdderrel ellentétben -
+ * pontosan üríthető: a drain() cellánként getAndSet(0)-t használ, így párhuzamos
+ * növelés nem veszhet el.
+ */
+final class StripedCounter {
+
+    // 8 long = 64 byte, hogy a cellák ne osztozzanak cache line-on
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    StripedCounter(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.cells = new AtomicLongArray(size * PADDING);
+        this.mask = size - 1;
+    }
+
+    void add(long delta) {
+        cells.getAndAdd(cellIndex(), delta);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    long drain() {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.getAndSet(i * PADDING, 0);
+        }
+        return sum;
+    }
+
+    private int cellIndex() {
+        long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return ((int) (h >>> 32) & mask) * PADDING;
+    }
+}
@@ -0,0 +1,37 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener a User entitáshoz: bármilyen úton történő módosítás vagy törlés után
+ * UserChangedEvent-et küld. A flush-kor azonnal, majd commit után még egyszer, hogy a
+ * commit előtt (még a régi adatokkal) újra cache-elt bejegyzés se maradjon meg.
+ */
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        UserChangedEvent event = new UserChangedEvent(user.getUsername());
+        eventPublisher.publishEvent(event);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        }
+    }
+}
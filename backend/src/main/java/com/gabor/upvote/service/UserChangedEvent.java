@@ -0,0 +1,16 @@
+package com.gabor.upvote.service;
+
+/**
+ * Egy felhasználó adatai (jelszó, enabled, szerepkörök) megváltoztak vagy törölték:
+ * a hitelesítési cache-eknek el kell felejteniük.
+ */
+public class UserChangedEvent {
+
+    private final String username;
+
+    public UserChangedEvent(String username) {
+        this.username = username;
+    }
+
+    public String getUsername() { return username; }
+}
@@ -0,0 +1,161 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sok szavazat írása egy tranzakcióban, JDBC batch-ekkel: guard sorok, vote_records sorok, majd
+ * ötletenként egyetlen összevont votes növelés. A vote_records id-ját az adatbázis adja (az IDENTITY
+ * oszlop alapértéke), a generált kulcsokat nem kérjük vissza, így a batch-elésnek nincs akadálya.
+ * <p>
+ * A hívó előszűrhet (jóváhagyott ötlet, még nem szavazott user), de a végső döntés itt születik:
+ * a guard tábla kényszere és a feltételes növelés a párhuzamos egyedi szavazásokkal szemben is helyes.
+ */
+@Component
+public class VoteBatchWriter {
+
+    public record PendingVote(Long ideaId, String username, String sessionId, Instant votedAt) { }
+
+    public enum Rejection { ALREADY_VOTED, IDEA_UNAVAILABLE }
+
+    /**
+     * @param rejections a votes lista indexei szerint; null, ha a szavazat bekerült
+     */
+    public record Result(int accepted, Rejection[] rejections) { }
+
+    private static final String CLAIM_SQL = "INSERT INTO vote_guards (username, idea_id, voted_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+    private static final String RELEASE_SQL = "DELETE FROM vote_guards WHERE username = ? AND idea_id = ?";
+    private static final String RECORD_SQL = "INSERT INTO vote_records (idea_id, username, session_id, voted_at) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INCREMENT_SQL = "UPDATE ideas SET votes = votes + ? WHERE id = ? AND approved = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdeaRepository ideaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ServiceMetrics metrics;
+
+    public VoteBatchWriter(JdbcTemplate jdbcTemplate,
+                           IdeaRepository ideaRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           ServiceMetrics metrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ideaRepository = ideaRepository;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+    }
+
+    @Transactional
+    public Result write(List<PendingVote> votes) {
+        Rejection[] rejections = new Rejection[votes.size()];
+        if (votes.isEmpty()) {
+            return new Result(0, rejections);
+        }
+
+        // 1. Guard sorok: ahol nem jött létre sor, ott a usernek már van szavazata (a köteg korábbi sorát is beleértve)
+        int[] claimed = batch(CLAIM_SQL, votes, (ps, vote) -> {
+            ps.setString(1, vote.username());
+            ps.setLong(2, vote.ideaId());
+            ps.setTimestamp(3, Timestamp.from(vote.votedAt()));
+        });
+        // Ötletenként összevont növelés; id szerint rendezve, hogy a párhuzamos kötegek azonos sorrendben zároljanak
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (int i = 0; i < votes.size(); i++) {
+            if (inserted(claimed[i])) {
+                deltas.merge(votes.get(i).ideaId(), 1, Integer::sum);
+            } else {
+                rejections[i] = Rejection.ALREADY_VOTED;
+            }
+        }
+
+        // 2. Növelés csak jóváhagyott ötleten; ami közben eltűnt vagy nem jóváhagyott, annak guard sorait visszavonjuk
+        List<Map.Entry<Long, Integer>> increments = new ArrayList<>(deltas.entrySet());
+        int[] incremented = batch(INCREMENT_SQL, increments, (ps, delta) -> {
+            ps.setInt(1, delta.getValue());
+            ps.setLong(2, delta.getKey());
+        });
+        for (int i = 0; i < increments.size(); i++) {
+            if (incremented[i] == 0) {
+                deltas.remove(increments.get(i).getKey());
+            }
+        }
+
+        List<PendingVote> accepted = new ArrayList<>(votes.size());
+        List<PendingVote> released = new ArrayList<>();
+        for (int i = 0; i < votes.size(); i++) {
+            if (rejections[i] != null) {
+                continue;
+            }
+            PendingVote vote = votes.get(i);
+            if (deltas.containsKey(vote.ideaId())) {
+                accepted.add(vote);
+            } else {
+                rejections[i] = Rejection.IDEA_UNAVAILABLE;
+                released.add(vote);
+            }
+        }
+        batch(RELEASE_SQL, released, (ps, vote) -> {
+            ps.setString(1, vote.username());
+            ps.setLong(2, vote.ideaId());
+        });
+
+        // 3. A szavazatok rögzítése
+        batch(RECORD_SQL, accepted, (ps, vote) -> {
+            ps.setLong(1, vote.ideaId());
+            ps.setString(2, vote.username());
+            ps.setString(3, vote.sessionId());
+            ps.setTimestamp(4, Timestamp.from(vote.votedAt()));
+        });
+
+        if (!accepted.isEmpty()) {
+            metrics.votesAccepted(accepted.size());
+            publishVoted(deltas.keySet(), accepted);
+        }
+        return new Result(accepted.size(), rejections);
+    }
+
+    // A JDBC-vel módosított számokat lekérdezéssel olvassuk vissza, nem a persistence context-ből
+    private void publishVoted(Iterable<Long> ideaIds, List<PendingVote> accepted) {
+        List<IdeaSummary> summaries = ideaRepository.findSummariesByIdIn(ideaIds);
+        eventPublisher.publishEvent(IdeaChangedEvent.ofApproved(IdeaChangedEvent.Type.VOTED, summaries));
+
+        Map<Long, IdeaSummary> byId = new HashMap<>();
+        summaries.forEach(summary -> byId.put(summary.getId(), summary));
+        List<VotesCastEvent.Cast> casts = new ArrayList<>(accepted.size());
+        for (PendingVote vote : accepted) {
+            casts.add(new VotesCastEvent.Cast(byId.get(vote.ideaId()), vote.votedAt()));
+        }
+        eventPublisher.publishEvent(new VotesCastEvent(casts));
+    }
+
+    // Egyetlen JDBC batch; a hívó köteg mérete határozza meg a méretét
+    private <T> int[] batch(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter)[0];
+    }
+
+    // Soronkénti darabszám nélkül (pl. a PostgreSQL driver reWriteBatchedInserts opciójával) a duplikált
+    // szavazat nem ismerhető fel, ilyenkor inkább nem írunk semmit
+    private static boolean inserted(int count) {
+        if (count == Statement.SUCCESS_NO_INFO) {
+            throw new IllegalStateException("JDBC driver did not report per-row batch update counts");
+        }
+        return count > 0;
+    }
+}
@@ -0,0 +1,276 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind szavazatszámláló: a növelések lock nélkül, ötletenkénti StripedCounter
+ * cellákba kerülnek, és egy háttérszál időközönként (vagy küszöb elérésekor) egyetlen
+ * tranzakcióban, ötletenként egy "votes = votes + delta" UPDATE-tel írja ki őket.
+ * <p>
+ * Leálláskor a maradék deltákat még kiírjuk; ha ez nem sikerül, a spill fájlba kerülnek,
+ * és a következő induláskor onnan töltjük vissza.
+ */
+@Component
+public class VoteCounterBuffer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteCounterBuffer.class);
+
+    private final IdeaRepository ideaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UpvoteProperties.WriteBehind settings;
+    private final boolean enabled;
+    private final int stripes = Runtime.getRuntime().availableProcessors();
+
+    private final Map<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+    // A flush alatt lévő, még nem commitolt delták (hogy a pending() ne "nyelje el" őket)
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong unflushed = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // Sikeres, nem üres flush-ok száma: ettől változik az adatbázisból olvasott lista
+    private final AtomicLong flushes = new AtomicLong();
+    // synchronized helyett: a flush JDBC-re vár, virtuális szálon így nem foglalja le a carrier szálat
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean spillLoaded;
+
+    public VoteCounterBuffer(IdeaRepository ideaRepository,
+                             PlatformTransactionManager transactionManager,
+                             UpvoteProperties properties) {
+        this.ideaRepository = ideaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getVotes().getWriteBehind();
+        this.enabled = properties.getVotes().getMode() == VoteMode.WRITE_BEHIND;
+    }
+
+    public void increment(Long ideaId) {
+        counters.computeIfAbsent(ideaId, id -> new StripedCounter(stripes)).add(1);
+        if (unflushed.incrementAndGet() >= settings.getFlushThreshold()) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Az adott ötlethez tartozó, még az adatbázisba nem írt szavazatok száma.
+     */
+    public long pending(Long ideaId) {
+        StripedCounter counter = counters.get(ideaId);
+        long buffered = counter != null ? counter.sum() : 0;
+        return buffered + inFlight.getOrDefault(ideaId, 0L);
+    }
+
+    /**
+     * Kiírja az összegyűlt deltákat. Hiba esetén a delták visszakerülnek a pufferbe,
+     * így a következő flush újra próbálkozik.
+     *
+     * @return a kiírt szavazatok száma
+     */
+    public long flush() {
+        flushLock.lock();
+        try {
+            return flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private long flushLocked() {
+        flushRequested.set(false);
+
+        // Idea id szerint rendezve, hogy több node flush-a se okozzon deadlockot
+        Map<Long, Long> deltas = new TreeMap<>();
+        counters.forEach((ideaId, counter) -> {
+            long delta = counter.drain();
+            if (delta != 0) {
+                deltas.put(ideaId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        long total = deltas.values().stream().mapToLong(Long::longValue).sum();
+        unflushed.addAndGet(-total);
+        inFlight.putAll(deltas);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    deltas.forEach((ideaId, delta) -> ideaRepository.incrementVotes(ideaId, delta.intValue())));
+            flushes.incrementAndGet();
+            if (spillLoaded) {
+                deleteSpillFile();
+            }
+            return total;
+        } catch (RuntimeException e) {
+            log.warn("Vote counter flush failed, {} votes kept for retry", total, e);
+            restore(deltas);
+            throw e;
+        } finally {
+            deltas.keySet().forEach(inFlight::remove);
+        }
+    }
+
+    public long flushCount() {
+        return flushes.get();
+    }
+
+    private void restore(Map<Long, Long> deltas) {
+        deltas.forEach((ideaId, delta) -> {
+            counters.computeIfAbsent(ideaId, id -> new StripedCounter(stripes)).add(delta);
+            unflushed.addAndGet(delta);
+        });
+    }
+
+    private void requestFlush() {
+        ScheduledExecutorService current = executor;
+        if (current != null && flushRequested.compareAndSet(false, true)) {
+            current.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // már logoltuk, a delták a pufferben maradtak
+        }
+    }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        loadSpillFile();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vote-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        executor = scheduler;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = executor;
+        if (scheduler == null) {
+            return;
+        }
+        executor = null;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            writeSpillFile();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    // A web szerver leállítása után fusson (már nem jön új szavazat), de még az adatforrás lezárása előtt
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    // --- spill fájl ---
+
+    private void writeSpillFile() {
+        flushLock.lock();
+        try {
+            writeSpillFileLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeSpillFileLocked() {
+        Properties spill = new Properties();
+        counters.forEach((ideaId, counter) -> {
+            long delta = counter.drain();
+            if (delta != 0) {
+                spill.setProperty(ideaId.toString(), Long.toString(delta));
+            }
+        });
+        if (spill.isEmpty()) {
+            return;
+        }
+        Path file = settings.getSpillFile();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                spill.store(writer, "Unflushed vote counter deltas");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.warn("Database unavailable on shutdown, {} vote counter deltas spilled to {}", spill.size(), file);
+        } catch (IOException e) {
+            log.error("Could not write vote counter spill file {}, lost deltas: {}", file, spill, e);
+        }
+    }
+
+    private void loadSpillFile() {
+        Path file = settings.getSpillFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties spill = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            spill.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read vote counter spill file " + file, e);
+        }
+        Map<Long, Long> deltas = new TreeMap<>();
+        spill.forEach((key, value) -> deltas.put(Long.valueOf((String) key), Long.valueOf((String) value)));
+        restore(deltas);
+        spillLoaded = true;
+        log.info("Restored {} vote counter deltas from {}", deltas.size(), file);
+    }
+
+    private void deleteSpillFile() {
+        try {
+            Files.deleteIfExists(settings.getSpillFile());
+            spillLoaded = false;
+        } catch (IOException e) {
+            log.warn("Could not delete vote counter spill file {}", settings.getSpillFile(), e);
+        }
+    }
+}
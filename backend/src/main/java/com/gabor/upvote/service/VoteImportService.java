@@ -0,0 +1,147 @@
+package com.gabor.upvote.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.gabor.upvote.dto.VoteImportResult;
+import com.gabor.upvote.dto.VoteImportResult.Reason;
+import com.gabor.upvote.dto.VoteImportResult.Rejection;
+import com.gabor.upvote.dto.VoteImportRow;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteGuardRepository;
+import com.gabor.upvote.service.VoteBatchWriter.PendingVote;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Offline gyűjtött (workshop, kioszk) szavazatok tömeges betöltése.
+ * <p>
+ * A bemenetet (JSON tömb vagy NDJSON) folyamként olvassuk, CHUNK_SIZE soronként: a jóváhagyott ötletek
+ * és a már szavazott userek ellenőrzése memóriában történik, az írás köteg-tranzakciókban a VoteBatchWriter-rel.
+ * Egy hiba csak az aktuális köteget görgeti vissza, a korábbiak megmaradnak.
+ */
+@Service
+public class VoteImportService {
+
+    static final int CHUNK_SIZE = 1000;
+    static final String SESSION_ID = "bulk-import";
+
+    private final IdeaRepository ideaRepository;
+    private final VoteGuardRepository voteGuardRepository;
+    private final VoteBatchWriter batchWriter;
+    private final VoteRecordPartitions partitions;
+    private final ObjectReader rowReader;
+
+    public VoteImportService(IdeaRepository ideaRepository,
+                             VoteGuardRepository voteGuardRepository,
+                             VoteBatchWriter batchWriter,
+                             VoteRecordPartitions partitions,
+                             ObjectMapper objectMapper) {
+        this.ideaRepository = ideaRepository;
+        this.voteGuardRepository = voteGuardRepository;
+        this.batchWriter = batchWriter;
+        this.partitions = partitions;
+        this.rowReader = objectMapper.readerFor(VoteImportRow.class);
+    }
+
+    public VoteImportResult importVotes(InputStream in) throws IOException {
+        Set<Long> approvedIds = new HashSet<>(ideaRepository.findApprovedIds());
+        Set<String> seen = new HashSet<>();
+        List<Rejection> rejections = new ArrayList<>();
+        Instant importedAt = Instant.now();
+        Predicate<Instant> coverage = partitions.coverage();
+
+        long index = 0;
+        long accepted = 0;
+        List<VoteImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (MappingIterator<VoteImportRow> rows = rowReader.readValues(in)) {
+            while (rows.hasNextValue()) {
+                chunk.add(rows.nextValue());
+                if (chunk.size() == CHUNK_SIZE) {
+                    accepted += importChunk(chunk, index, approvedIds, seen, importedAt, coverage, rejections);
+                    index += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // A hibás sor előtti sorok bekerülnek, a hívó innen folytathatja
+            long invalidIndex = index + chunk.size();
+            accepted += importChunk(chunk, index, approvedIds, seen, importedAt, coverage, rejections);
+            throw new IllegalArgumentException("Invalid import row " + invalidIndex + " (" + accepted
+                    + " votes before it were imported): " + e.getOriginalMessage(), e);
+        }
+        accepted += importChunk(chunk, index, approvedIds, seen, importedAt, coverage, rejections);
+        index += chunk.size();
+        return new VoteImportResult(index, accepted, rejections);
+    }
+
+    private int importChunk(List<VoteImportRow> chunk, long firstIndex, Set<Long> approvedIds, Set<String> seen,
+                            Instant importedAt, Predicate<Instant> coverage, List<Rejection> rejections) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Set<String> usernames = new HashSet<>();
+        for (VoteImportRow row : chunk) {
+            if (row.getUsername() != null) {
+                usernames.add(row.getUsername());
+            }
+        }
+        Set<String> alreadyVoted = new HashSet<>(voteGuardRepository.findExistingUsernames(usernames));
+
+        List<PendingVote> votes = new ArrayList<>(chunk.size());
+        List<Long> voteIndexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            VoteImportRow row = chunk.get(i);
+            long index = firstIndex + i;
+            Instant votedAt = row.getVotedAt() != null ? row.getVotedAt() : importedAt;
+            Reason reason = validate(row, votedAt, approvedIds, seen, alreadyVoted, coverage);
+            if (reason != null) {
+                rejections.add(new Rejection(index, row.getIdeaId(), row.getUsername(), reason));
+                continue;
+            }
+            votes.add(new PendingVote(row.getIdeaId(), row.getUsername(), SESSION_ID, votedAt));
+            voteIndexes.add(index);
+        }
+
+        VoteBatchWriter.Result result = batchWriter.write(votes);
+        // Az előszűrés után közben leadott egyedi szavazatok vagy törölt ötletek
+        for (int i = 0; i < votes.size(); i++) {
+            VoteBatchWriter.Rejection rejection = result.rejections()[i];
+            if (rejection != null) {
+                PendingVote vote = votes.get(i);
+                Reason reason = rejection == VoteBatchWriter.Rejection.ALREADY_VOTED ? Reason.ALREADY_VOTED : Reason.UNKNOWN_IDEA;
+                rejections.add(new Rejection(voteIndexes.get(i), vote.ideaId(), vote.username(), reason));
+            }
+        }
+        return result.accepted();
+    }
+
+    private static Reason validate(VoteImportRow row, Instant votedAt, Set<Long> approvedIds, Set<String> seen,
+                                   Set<String> alreadyVoted, Predicate<Instant> coverage) {
+        if (row.getIdeaId() == null || row.getUsername() == null || row.getUsername().isBlank()) {
+            return Reason.INVALID;
+        }
+        if (!coverage.test(votedAt)) {
+            return Reason.OUT_OF_RANGE;
+        }
+        if (!approvedIds.contains(row.getIdeaId())) {
+            return Reason.UNKNOWN_IDEA;
+        }
+        if (alreadyVoted.contains(row.getUsername())) {
+            return Reason.ALREADY_VOTED;
+        }
+        if (!seen.add(row.getUsername())) {
+            return Reason.DUPLICATE_IN_IMPORT;
+        }
+        return null;
+    }
+}
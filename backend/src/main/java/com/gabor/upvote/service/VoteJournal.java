@@ -0,0 +1,456 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Az aszinkron módban elfogadott szavazatok write-ahead naplója: a 202 válasz csak akkor megy ki,
+ * ha a szavazat már lemezen van. Append-only szegmensfájlok (FileChannel), a fsync-et egy háttérszál
+ * néhány ms-onként, az addig összegyűlt összes rekordra egyszerre végzi (group commit).
+ * <p>
+ * Egy szegmens akkor törlődik, ha lezárult és minden szavazata az adatbázisba került (vagy elutasították).
+ * Induláskor a megmaradt szegmenseket a VoteBatchWriter-rel visszajátsszuk; a már commitolt szavazatokat
+ * a guard tábla kiszűri, így a visszajátszás nem dupláz.
+ * <p>
+ * Rekord: [hossz][CRC32][ideaId][votedAt mp][votedAt ns][username][sessionId]. A félbeszakadt utolsó
+ * rekordot (kill -9 írás közben) a hossz/CRC ellenőrzés dobja el; ez még nem volt visszaigazolva.
+ */
+@Component
+public class VoteJournal implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteJournal.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("votes-(\\d+)\\.journal");
+    private static final int HEADER_BYTES = 8;
+
+    /**
+     * Egy naplózott szavazat helye; a szavazat feldolgozása után a release-nek kell visszaadni.
+     */
+    public static final class Position {
+        private final Segment segment;
+
+        private Position(Segment segment) {
+            this.segment = segment;
+        }
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path file;
+        private FileChannel channel;
+        private long size;
+        // Még nem feldolgozott szavazatok; lezárt és üres szegmens törölhető
+        private int pending;
+        private boolean sealed;
+
+        private Segment(long id, Path file) {
+            this.id = id;
+            this.file = file;
+        }
+    }
+
+    private final VoteBatchWriter writer;
+    private final UpvoteProperties.Journal settings;
+    private final int replayBatchSize;
+    private final boolean enabled;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    private Segment active;
+    private long appendedSeq;
+    private long syncedSeq;
+    private IOException failure;
+
+    private volatile ScheduledExecutorService syncer;
+
+    public VoteJournal(VoteBatchWriter writer, UpvoteProperties properties) {
+        this.writer = writer;
+        this.settings = properties.getVotes().getJournal();
+        this.replayBatchSize = properties.getVotes().getAsync().getBatchSize();
+        this.enabled = settings.isEnabled() && properties.getVotes().getMode() == VoteMode.ASYNC;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Naplózza a szavazatot, és megvárja, amíg lemezre kerül.
+     *
+     * @return a release-hez szükséges pozíció; null, ha a napló ki van kapcsolva
+     * @throws UncheckedIOException ha a napló nem írható (a szavazatot nem szabad visszaigazolni)
+     */
+    public Position append(VoteBatchWriter.PendingVote vote) {
+        if (!enabled) {
+            return null;
+        }
+        ByteBuffer record = encode(vote);
+        lock.lock();
+        try {
+            checkWritable();
+            Segment segment = active;
+            try {
+                while (record.hasRemaining()) {
+                    segment.channel.write(record);
+                }
+            } catch (IOException e) {
+                fail(e);
+                throw new UncheckedIOException(e);
+            }
+            segment.size += record.limit();
+            segment.pending++;
+            long seq = ++appendedSeq;
+            while (syncedSeq < seq) {
+                checkWritable();
+                synced.awaitUninterruptibly();
+            }
+            return new Position(segment);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A szavazatok feldolgozva (commitolva vagy elutasítva); a teljesen feldolgozott lezárt szegmensek törlődnek.
+     */
+    public void release(List<Position> positions) {
+        lock.lock();
+        try {
+            for (Position position : positions) {
+                if (position == null) {
+                    continue;
+                }
+                Segment segment = position.segment;
+                segment.pending--;
+                if (segment.sealed && segment.pending == 0) {
+                    delete(segment.file);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Vote journal failed", failure);
+        }
+        if (active == null) {
+            throw new IllegalStateException("Vote journal is not running");
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            log.error("Vote journal write failed, async votes are refused until restart", e);
+            failure = e;
+        }
+        synced.signalAll();
+    }
+
+    // --- group fsync ---
+
+    private void sync() {
+        Segment segment;
+        long target;
+        lock.lock();
+        try {
+            if (active == null || failure != null || syncedSeq == appendedSeq) {
+                return;
+            }
+            segment = active;
+            target = appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+
+        // A fsync alatt a többi kérés tovább írhat, ők a következő körben kerülnek lemezre
+        try {
+            segment.channel.force(false);
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                fail(e);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (segment.size >= settings.getSegmentSize().toBytes()) {
+                target = appendedSeq;
+                seal(segment);
+                active = openSegment(segment.id + 1);
+            }
+            syncedSeq = Math.max(syncedSeq, target);
+            synced.signalAll();
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Vote journal sync failed", e);
+        }
+    }
+
+    // A lock alatt hívjuk, így a force óta érkezett rekordok is lemezre kerülnek
+    private void seal(Segment segment) throws IOException {
+        segment.channel.force(false);
+        segment.channel.close();
+        segment.sealed = true;
+        if (segment.pending == 0) {
+            delete(segment.file);
+        }
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Segment segment = new Segment(id, settings.getDirectory().resolve("votes-" + id + ".journal"));
+        segment.channel = FileChannel.open(segment.file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        syncDirectory();
+        return segment;
+    }
+
+    // Az új fájl könyvtárbejegyzése is legyen tartós; nem minden platformon nyitható meg könyvtár
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(settings.getDirectory(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            log.debug("Could not fsync vote journal directory {}", settings.getDirectory(), e);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete processed vote journal segment {}", file, e);
+        }
+    }
+
+    // --- rekord formátum ---
+
+    static ByteBuffer encode(VoteBatchWriter.PendingVote vote) {
+        byte[] username = vote.username().getBytes(StandardCharsets.UTF_8);
+        byte[] sessionId = vote.sessionId() != null ? vote.sessionId().getBytes(StandardCharsets.UTF_8) : null;
+        int payload = 8 + 8 + 4 + 4 + username.length + 4 + (sessionId != null ? sessionId.length : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload);
+        buffer.putInt(payload);
+        buffer.putInt(0);
+        buffer.putLong(vote.ideaId());
+        buffer.putLong(vote.votedAt().getEpochSecond());
+        buffer.putInt(vote.votedAt().getNano());
+        buffer.putInt(username.length);
+        buffer.put(username);
+        buffer.putInt(sessionId != null ? sessionId.length : -1);
+        if (sessionId != null) {
+            buffer.put(sessionId);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, payload);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    /**
+     * Egy szegmens rekordjai; az első hibás (félbeszakadt) rekordnál megáll.
+     */
+    static List<VoteBatchWriter.PendingVote> read(Path file) throws IOException {
+        List<VoteBatchWriter.PendingVote> votes = new ArrayList<>();
+        long fileSize = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                byte[] payload;
+                int crcValue;
+                try {
+                    int length = in.readInt();
+                    crcValue = in.readInt();
+                    if (length <= 0 || length > fileSize) {
+                        log.warn("Vote journal {} ends with a corrupt record, ignoring the rest", file);
+                        return votes;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return votes;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != crcValue) {
+                    log.warn("Vote journal {} ends with a torn record, ignoring the rest", file);
+                    return votes;
+                }
+                votes.add(decode(ByteBuffer.wrap(payload)));
+            }
+        }
+    }
+
+    private static VoteBatchWriter.PendingVote decode(ByteBuffer payload) {
+        long ideaId = payload.getLong();
+        Instant votedAt = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+        byte[] username = new byte[payload.getInt()];
+        payload.get(username);
+        int sessionLength = payload.getInt();
+        String sessionId = null;
+        if (sessionLength >= 0) {
+            byte[] session = new byte[sessionLength];
+            payload.get(session);
+            sessionId = new String(session, StandardCharsets.UTF_8);
+        }
+        return new VoteBatchWriter.PendingVote(ideaId, new String(username, StandardCharsets.UTF_8), sessionId, votedAt);
+    }
+
+    // --- visszajátszás ---
+
+    private long replay() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(settings.getDirectory())) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.valueOf(matcher.group(1)), file);
+                }
+            });
+        }
+        if (segments.isEmpty()) {
+            return 1;
+        }
+
+        int replayed = 0;
+        int accepted = 0;
+        List<VoteBatchWriter.PendingVote> batch = new ArrayList<>(replayBatchSize);
+        for (Path file : segments.values()) {
+            for (VoteBatchWriter.PendingVote vote : read(file)) {
+                batch.add(vote);
+                if (batch.size() == replayBatchSize) {
+                    accepted += writer.write(batch).accepted();
+                    replayed += batch.size();
+                    batch = new ArrayList<>(replayBatchSize);
+                }
+            }
+        }
+        accepted += writer.write(batch).accepted();
+        replayed += batch.size();
+
+        // Csak a sikeres visszajátszás után: hiba esetén a következő induláskor újra próbáljuk
+        for (Path file : segments.values()) {
+            Files.delete(file);
+        }
+        log.info("Replayed {} journaled votes from {} segments, {} were not yet in the database",
+                replayed, segments.size(), accepted);
+        return segments.lastKey() + 1;
+    }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long nextId;
+        try {
+            Files.createDirectories(settings.getDirectory());
+            nextId = replay();
+            lock.lock();
+            try {
+                active = openSegment(nextId);
+                failure = null;
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open vote journal in " + settings.getDirectory(), e);
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vote-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getSyncInterval().toNanos();
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, interval, interval, TimeUnit.NANOSECONDS);
+        syncer = scheduler;
+    }
+
+    // A VotePipeline után áll le: addigra a sor kiürült, a feldolgozott szegmensek törlődtek
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = syncer;
+        if (scheduler == null) {
+            return;
+        }
+        syncer = null;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            Segment segment = active;
+            active = null;
+            try {
+                if (failure == null) {
+                    seal(segment);
+                    syncedSeq = appendedSeq;
+                } else {
+                    segment.channel.close();
+                }
+            } catch (IOException e) {
+                log.error("Could not close vote journal segment {}", segment.file, e);
+            }
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return syncer != null;
+    }
+
+    // A VotePipeline előtt indul (visszajátszás) és utána áll le
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
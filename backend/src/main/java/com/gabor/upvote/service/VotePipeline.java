@@ -0,0 +1,333 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import com.gabor.upvote.dto.VoteTicket;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.service.ServiceMetrics.VoteOutcome;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aszinkron szavazás (upvote.votes.mode=async): a kérés csak olcsón ellenőriz és egy korlátos
+ * sorba tesz, a választ (202 + ticket) nem tartja fel az adatbázis commit. Egy háttérszál a sort
+ * kötegekben üríti, kötegenként egy VoteBatchWriter tranzakcióval; a duplikált és a közben törölt
+ * ötletre leadott szavazatok a ticket állapotában jelennek meg.
+ * <p>
+ * Az ellenőrzés helyi állapotból dolgozik: a jóváhagyottnak látott ötletek id-jai (első szavazáskor
+ * egy lekérdezés, törléskor eseményből ürül) és a sorban álló userek. A végső döntés a writeré.
+ * <p>
+ * Bekapcsolt VoteJournal mellett a 202 csak a szavazat naplózása (fsync) után megy ki, így összeomlás
+ * után a következő induláskor visszajátszható.
+ */
+@Component
+public class VotePipeline implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VotePipeline.class);
+
+    // Leálláskor ennyiszer próbáljuk kiírni a maradékot, futás közben az adatbázis visszatéréséig
+    private static final int STOP_ATTEMPTS = 3;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private record Queued(String ticket, VoteBatchWriter.PendingVote vote, VoteJournal.Position position) { }
+
+    private record Tracked(String username, VoteTicket ticket) { }
+
+    private final VoteBatchWriter writer;
+    private final VoteJournal journal;
+    private final IdeaRepository ideaRepository;
+    private final ServiceMetrics metrics;
+    private final UpvoteProperties.Async settings;
+    private final boolean enabled;
+
+    private final BlockingQueue<Queued> queue;
+    // Szabad helyek a sorban; a naplózás előtt foglaljuk, így naplózott szavazat nem akad el tele soron
+    private final Semaphore slots;
+    private final Cache<String, Tracked> tickets;
+    private final Set<Long> approvedIds = ConcurrentHashMap.newKeySet();
+    // A sorban (vagy az éppen írt kötegben) szavazattal rendelkező userek
+    private final Set<String> queuedVoters = ConcurrentHashMap.newKeySet();
+
+    private volatile Thread consumer;
+    private volatile boolean running;
+
+    public VotePipeline(VoteBatchWriter writer,
+                        VoteJournal journal,
+                        IdeaRepository ideaRepository,
+                        ServiceMetrics metrics,
+                        MeterRegistry meterRegistry,
+                        UpvoteProperties properties) {
+        this.writer = writer;
+        this.journal = journal;
+        this.ideaRepository = ideaRepository;
+        this.metrics = metrics;
+        this.settings = properties.getVotes().getAsync();
+        this.enabled = properties.getVotes().getMode() == VoteMode.ASYNC;
+        this.queue = new ArrayBlockingQueue<>(enabled ? settings.getQueueCapacity() : 1);
+        this.slots = new Semaphore(enabled ? settings.getQueueCapacity() : 0);
+        // Csak lejárat, méretkorlát nélkül: sorban álló ticket nem eshet ki
+        this.tickets = Caffeine.newBuilder()
+                .expireAfterWrite(settings.getTicketTtl())
+                .build();
+        Gauge.builder("upvote.votes.queue", queue, BlockingQueue::size)
+                .description("Aszinkron módban a kiírásra váró szavazatok")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sorba állítja a szavazatot.
+     *
+     * @return a ticket; üres, ha a sor tele van, a napló nem írható, vagy a pipeline nem fut
+     * @throws NoSuchElementException ha nincs ilyen ötlet
+     * @throws IllegalStateException  ha az ötlet nincs jóváhagyva, vagy a usernek már sorban áll egy szavazata
+     */
+    public Optional<VoteTicket> submit(Long ideaId, String username, String sessionId) {
+        checkApproved(ideaId);
+        if (!queuedVoters.add(username)) {
+            metrics.voteRejected(VoteOutcome.DUPLICATE);
+            throw new IllegalStateException("Már leadtad a szavazatodat");
+        }
+        VoteTicket ticket = VoteTicket.queued(UUID.randomUUID().toString(), ideaId);
+        tickets.put(ticket.getTicket(), new Tracked(username, ticket));
+        if (!running || !slots.tryAcquire()) {
+            return rejectSubmit(ticket, username);
+        }
+        VoteBatchWriter.PendingVote vote = new VoteBatchWriter.PendingVote(ideaId, username, sessionId, Instant.now());
+        VoteJournal.Position position;
+        try {
+            position = journal.append(vote);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            // Nem tartós szavazatot nem igazolunk vissza; a kliens 503 után újrapróbálhatja
+            slots.release();
+            return rejectSubmit(ticket, username);
+        }
+        queue.add(new Queued(ticket.getTicket(), vote, position));
+        return Optional.of(ticket);
+    }
+
+    private Optional<VoteTicket> rejectSubmit(VoteTicket ticket, String username) {
+        tickets.invalidate(ticket.getTicket());
+        queuedVoters.remove(username);
+        return Optional.empty();
+    }
+
+    /**
+     * A ticket állapota; más user ticketje ugyanúgy üres, mint a nem létező vagy lejárt.
+     */
+    public Optional<VoteTicket> status(String ticket, String username) {
+        Tracked tracked = tickets.getIfPresent(ticket);
+        if (tracked == null || !tracked.username().equals(username)) {
+            return Optional.empty();
+        }
+        return Optional.of(tracked.ticket());
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private void checkApproved(Long ideaId) {
+        if (approvedIds.contains(ideaId)) {
+            return;
+        }
+        Idea idea = ideaRepository.findById(ideaId).orElseThrow(() -> {
+            metrics.voteRejected(VoteOutcome.NOT_FOUND);
+            return new NoSuchElementException("Idea not found");
+        });
+        if (!idea.isApproved()) {
+            metrics.voteRejected(VoteOutcome.UNAPPROVED);
+            throw new IllegalStateException("Ez az ötlet még nincs jóváhagyva");
+        }
+        approvedIds.add(ideaId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdeaChanged(IdeaChangedEvent event) {
+        // Jóváhagyás nem vonható vissza, csak a törlést kell követni
+        if (event.getType() == IdeaChangedEvent.Type.REJECTED) {
+            event.getIdeas().forEach(idea -> approvedIds.remove(idea.getId()));
+        }
+    }
+
+    // --- fogyasztó ---
+
+    private void drain() {
+        List<Queued> batch = new ArrayList<>(settings.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Queued first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, settings.getBatchSize() - 1);
+                slots.release(batch.size());
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Vote pipeline batch of {} votes could not be completed", batch.size(), e);
+                batch.forEach(queued -> complete(queued, VoteTicket.Status.FAILED, null));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Egy köteg kiírása és a ticketek frissítése. Átmeneti adatbázis hibánál visszalépéssel újrapróbál;
+     * a writer tranzakciója egészében görgetődik vissza, így az ismétlés nem dupláz. Más hibánál a köteget
+     * felezve írja tovább, így egy hibás szavazat nem akasztja meg a fogyasztót.
+     */
+    private void write(List<Queued> batch) throws InterruptedException {
+        List<VoteBatchWriter.PendingVote> votes = new ArrayList<>(batch.size());
+        batch.forEach(queued -> votes.add(queued.vote()));
+
+        VoteBatchWriter.Result result = null;
+        long backoff = 100;
+        for (int attempt = 1; result == null; attempt++) {
+            try {
+                result = writer.write(votes);
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    writeSplit(batch, e);
+                    return;
+                }
+                if (!running && attempt >= STOP_ATTEMPTS) {
+                    log.error("Vote pipeline stopped with database unavailable, {} queued votes not written{}",
+                            batch.size(), journal.isEnabled() ? " (kept in the journal for replay)" : "", e);
+                    batch.forEach(queued -> complete(queued, VoteTicket.Status.FAILED, null));
+                    return;
+                }
+                log.warn("Vote pipeline batch of {} votes failed (attempt {}), retrying", batch.size(), attempt, e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+
+        List<VoteJournal.Position> processed = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            processed.add(batch.get(i).position());
+            VoteBatchWriter.Rejection rejection = result.rejections()[i];
+            if (rejection == null) {
+                complete(batch.get(i), VoteTicket.Status.ACCEPTED, null);
+            } else if (rejection == VoteBatchWriter.Rejection.ALREADY_VOTED) {
+                metrics.voteRejected(VoteOutcome.DUPLICATE);
+                complete(batch.get(i), VoteTicket.Status.REJECTED, VoteTicket.Reason.ALREADY_VOTED);
+            } else {
+                metrics.voteRejected(VoteOutcome.UNAPPROVED);
+                approvedIds.remove(batch.get(i).vote().ideaId());
+                complete(batch.get(i), VoteTicket.Status.REJECTED, VoteTicket.Reason.IDEA_UNAVAILABLE);
+            }
+        }
+        // A napló szegmense csak az adatbázisban is lezárt szavazatok után törölhető
+        journal.release(processed);
+    }
+
+    // Felezés a hibás szavazat elkülönítésére; a sorrend megmarad, így a köteg korábbi szavazata nyer
+    private void writeSplit(List<Queued> batch, RuntimeException failure) throws InterruptedException {
+        if (batch.size() > 1) {
+            int half = batch.size() / 2;
+            write(batch.subList(0, half));
+            write(batch.subList(half, batch.size()));
+            return;
+        }
+        // Visszajátszáskor is ugyanígy hibázna (és megakasztaná az indulást), ezért a naplóból is kikerül
+        VoteBatchWriter.PendingVote vote = batch.get(0).vote();
+        log.error("Vote pipeline dropped a vote that cannot be written: idea {}, user {}, voted at {}",
+                vote.ideaId(), vote.username(), vote.votedAt(), failure);
+        complete(batch.get(0), VoteTicket.Status.FAILED, null);
+        journal.release(Collections.singletonList(batch.get(0).position()));
+    }
+
+    // Kapcsolat- vagy zárolási hiba: ugyanaz a köteg később sikerülhet
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void complete(Queued queued, VoteTicket.Status status, VoteTicket.Reason reason) {
+        tickets.asMap().computeIfPresent(queued.ticket(),
+                (id, tracked) -> new Tracked(tracked.username(), tracked.ticket().with(status, reason)));
+        queuedVoters.remove(queued.vote().username());
+    }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::drain, "vote-pipeline");
+        thread.setDaemon(true);
+        thread.start();
+        consumer = thread;
+    }
+
+    // A sorban maradt szavazatokat még kiírjuk; új szavazat ekkor már nem érkezik
+    @Override
+    public void stop() {
+        Thread thread = consumer;
+        if (thread == null) {
+            return;
+        }
+        consumer = null;
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Vote pipeline did not drain in time, {} queued votes not written{}",
+                    queue.size(), journal.isEnabled() ? " (kept in the journal for replay)" : "");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return consumer != null;
+    }
+
+    // A web szerver leállítása után fusson (már nem jön új szavazat), de még az adatforrás lezárása előtt
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
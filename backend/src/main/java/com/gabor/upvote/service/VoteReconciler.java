@@ -0,0 +1,342 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.dto.ReconciliationReport;
+import com.gabor.upvote.repository.IdeaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Az ideas.votes számláló egyeztetése a vote_records sorokkal (összeomlás, kézi törlés utáni eltérések).
+ * <p>
+ * Az ötleteket id tartományokra bontva, korlátos számú szálon párhuzamosan vizsgálja: tartományonként egyetlen
+ * csoportosított lekérdezés, zárolás nélkül (egy utasítás, így egy konzisztens pillanatkép). Az eltérő ötleteket
+ * egyenként, egy rövid tranzakcióban javítja: a sor zárolása után újraszámol, és abszolút értéket ír, így a
+ * közben érkező szavazatok és a több node-on párhuzamosan futó egyeztetés sem okoz hibát.
+ * <p>
+ * Write-behind módban a még ki nem írt növelések más példányok memóriájában lehetnek, ott csak jelent.
+ */
+@Component
+public class VoteReconciler implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteReconciler.class);
+
+    // A számláló striped módban a slotokban váró szavazatokkal együtt pontos; a lecsatolt partíciók
+    // szavazatait a vote_archive_counts őrzi
+    private static final String SCAN = "SELECT i.id, i.votes, i.approved, coalesce(r.n, 0) + coalesce(a.votes, 0), " +
+            "coalesce(s.n, 0) FROM ideas i " +
+            "LEFT JOIN (SELECT idea_id, count(*) AS n FROM vote_records WHERE idea_id >= ? AND idea_id < ? " +
+            "GROUP BY idea_id) r ON r.idea_id = i.id " +
+            "LEFT JOIN (SELECT idea_id, sum(votes) AS n FROM idea_vote_slots WHERE idea_id >= ? AND idea_id < ? " +
+            "GROUP BY idea_id) s ON s.idea_id = i.id " +
+            "LEFT JOIN vote_archive_counts a ON a.idea_id = i.id " +
+            "WHERE i.id >= ? AND i.id < ?";
+
+    private final IdeaRepository ideaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UpvoteProperties.Reconciliation settings;
+    private final boolean writeBehind;
+
+    private final Timer duration;
+    private final Counter driftedIdeas;
+    private final Counter driftedVotes;
+    private final Counter repaired;
+
+    private final AtomicReference<Run> current = new AtomicReference<>();
+    private volatile Run last;
+
+    private volatile ScheduledExecutorService executor;
+
+    public VoteReconciler(IdeaRepository ideaRepository,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          UpvoteProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.ideaRepository = ideaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.settings = properties.getReconciliation();
+        this.writeBehind = properties.getVotes().getMode() == VoteMode.WRITE_BEHIND;
+
+        this.duration = Timer.builder("upvote.reconciliation").description("VoteReconciler.reconcile").register(meterRegistry);
+        this.driftedIdeas = Counter.builder("upvote.reconciliation.drifted.ideas")
+                .description("Egyeztetéskor eltérő szavazatszámú ötletek").register(meterRegistry);
+        this.driftedVotes = Counter.builder("upvote.reconciliation.drifted.votes")
+                .description("Egyeztetéskor talált eltérések abszolút összege").register(meterRegistry);
+        this.repaired = Counter.builder("upvote.reconciliation.repaired")
+                .description("Egyeztetéskor javított ötletek").register(meterRegistry);
+        Gauge.builder("upvote.reconciliation.progress", this, VoteReconciler::progress)
+                .description("A futó (vagy az utolsó) egyeztetés feldolgozott tartományainak aránya")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Egyeztetés indítása a háttérben; ha már fut egy, IllegalStateException.
+     */
+    public ReconciliationReport trigger(boolean repair) {
+        ScheduledExecutorService scheduler = executor;
+        if (scheduler == null) {
+            throw new IllegalStateException("Reconciliation is not available while shutting down");
+        }
+        Run run = begin(repair);
+        scheduler.execute(() -> execute(run));
+        return run.report();
+    }
+
+    /**
+     * Egyeztetés a hívó szálán (az időzítő és a tesztek használják).
+     */
+    public ReconciliationReport reconcile(boolean repair) {
+        Run run = begin(repair);
+        execute(run);
+        return run.report();
+    }
+
+    public Optional<ReconciliationReport> status() {
+        Run run = current.get();
+        if (run == null) {
+            run = last;
+        }
+        return Optional.ofNullable(run).map(Run::report);
+    }
+
+    private Run begin(boolean repair) {
+        Run run = new Run(repair && !writeBehind);
+        if (!current.compareAndSet(null, run)) {
+            throw new IllegalStateException("Reconciliation already running");
+        }
+        return run;
+    }
+
+    private void execute(Run run) {
+        long started = System.nanoTime();
+        try {
+            scan(run);
+            run.finish(ReconciliationReport.Status.COMPLETED, null);
+            log.info("Vote reconciliation finished: {} ideas scanned, {} drifted by {} votes, {} repaired",
+                    run.ideasScanned.get(), run.driftedIdeas.get(), run.driftedVotes.get(), run.repaired.get());
+        } catch (RuntimeException e) {
+            run.finish(ReconciliationReport.Status.FAILED, e.getMessage());
+            log.warn("Vote reconciliation failed", e);
+        } finally {
+            duration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            last = run;
+            current.set(null);
+        }
+    }
+
+    private void scan(Run run) {
+        Long min = jdbcTemplate.queryForObject("SELECT min(id) FROM ideas", Long.class);
+        Long max = jdbcTemplate.queryForObject("SELECT max(id) FROM ideas", Long.class);
+        if (min == null) {
+            return;
+        }
+        int chunkSize = settings.getChunkSize();
+        run.chunks = (max - min) / chunkSize + 1;
+
+        // A szálak a következő szabad tartományt veszik el, így a lassú tartományok nem tartják fel a többit
+        AtomicLong next = new AtomicLong(min);
+        int parallelism = (int) Math.min(settings.getParallelism(), run.chunks);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "vote-reconcile-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                tasks.add(() -> {
+                    for (long from = next.getAndAdd(chunkSize); from <= max; from = next.getAndAdd(chunkSize)) {
+                        reconcileChunk(run, from, from + chunkSize);
+                        run.chunksDone.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> result : workers.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconciliation interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void reconcileChunk(Run run, long from, long to) {
+        List<Drift> drifted = new ArrayList<>();
+        jdbcTemplate.query(SCAN, row -> {
+            run.ideasScanned.incrementAndGet();
+            long drift = row.getLong(4) - row.getLong(5) - row.getLong(2);
+            if (drift != 0) {
+                run.driftedIdeas.incrementAndGet();
+                run.driftedVotes.addAndGet(Math.abs(drift));
+                driftedIdeas.increment();
+                driftedVotes.increment(Math.abs(drift));
+                drifted.add(new Drift(row.getLong(1), row.getBoolean(3)));
+            }
+        }, from, to, from, to, from, to);
+        if (!run.repair || drifted.isEmpty()) {
+            return;
+        }
+
+        List<Long> approved = new ArrayList<>();
+        for (Drift drift : drifted) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> repair(drift.ideaId())))) {
+                run.repaired.incrementAndGet();
+                repaired.increment();
+                if (drift.approved()) {
+                    approved.add(drift.ideaId());
+                }
+            }
+        }
+        if (!approved.isEmpty()) {
+            // APPROVED: a javított (akár kisebb) szám feltétel nélkül felülírja a memóriabeli ranglistát
+            List<IdeaSummary> summaries = ideaRepository.findSummariesByIdIn(approved);
+            eventPublisher.publishEvent(IdeaChangedEvent.ofApproved(IdeaChangedEvent.Type.APPROVED, summaries));
+        }
+    }
+
+    // A zárolás után újraszámolunk: a vizsgálat óta commitolt szavazatok már benne vannak
+    private boolean repair(Long ideaId) {
+        Optional<Integer> votes = ideaRepository.lockVotes(ideaId);
+        if (votes.isEmpty()) {
+            return false;
+        }
+        long expected = ideaRepository.countExpectedVotes(ideaId);
+        if (votes.get() == expected) {
+            return false;
+        }
+        ideaRepository.setVotes(ideaId, Math.toIntExact(expected));
+        return true;
+    }
+
+    private double progress() {
+        Run run = current.get();
+        if (run == null) {
+            run = last;
+        }
+        if (run == null || run.chunks == 0) {
+            return run == null ? 0 : 1;
+        }
+        return (double) run.chunksDone.get() / run.chunks;
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile(settings.isRepair());
+        } catch (RuntimeException e) {
+            // Egy admin által indított futás még tart
+            log.warn("Scheduled vote reconciliation skipped: {}", e.getMessage());
+        }
+    }
+
+    private record Drift(Long ideaId, boolean approved) { }
+
+    private static final class Run {
+
+        private final boolean repair;
+        private final Instant startedAt = Instant.now();
+        private volatile long chunks;
+        private final AtomicLong chunksDone = new AtomicLong();
+        private final AtomicLong ideasScanned = new AtomicLong();
+        private final AtomicLong driftedIdeas = new AtomicLong();
+        private final AtomicLong driftedVotes = new AtomicLong();
+        private final AtomicLong repaired = new AtomicLong();
+        private volatile ReconciliationReport.Status status = ReconciliationReport.Status.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Run(boolean repair) {
+            this.repair = repair;
+        }
+
+        private void finish(ReconciliationReport.Status status, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+
+        private ReconciliationReport report() {
+            return new ReconciliationReport(status, repair, startedAt, finishedAt, chunks, chunksDone.get(),
+                    ideasScanned.get(), driftedIdeas.get(), driftedVotes.get(), repaired.get(), error);
+        }
+    }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vote-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (settings.isScheduled()) {
+            long interval = settings.getInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        executor = scheduler;
+    }
+
+    // A félbehagyott egyeztetés nem hagy hibás állapotot: minden javítás külön tranzakció
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = executor;
+        if (scheduler == null) {
+            return;
+        }
+        executor = null;
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,342 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.model.VoteRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Havi partíciók a vote_records táblához (upvote.votes.partitioning.enabled, csak PostgreSQL).
+ * <p>
+ * Induláskor a hagyományos táblát egy voted_at szerint particionált táblára cseréli: a meglévő tábla
+ * (átnevezve) lesz az első, [MINVALUE, első hónap) tartományú partíció, így az átállás nem másol sorokat.
+ * Utána időnként előre létrehozza a következő hónapok partícióit, és a megőrzési időn túli hónapokat
+ * lecsatolja (DETACH PARTITION: csak metaadat, nagy DELETE helyett). A lecsatolt szavazatok ötletenkénti
+ * száma a vote_archive_counts táblába kerül, ugyanabban a tranzakcióban.
+ * <p>
+ * A particionált táblán nem lehet (idea_id, username) egyedi kényszer: a szavazatonkénti egyediséget
+ * a vote_guards tábla biztosítja, ezt minden szavazási út használja.
+ */
+@Component
+public class VoteRecordPartitions implements SmartInitializingSingleton, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteRecordPartitions.class);
+
+    static final String TABLE = "vote_records";
+
+    private static final String PREFIX = TABLE + "_p";
+    // A particionálás előtti sorok: minden, ami az adott hónap előtt készült
+    private static final String LEGACY_PREFIX = TABLE + "_before_p";
+    private static final Pattern NAME = Pattern.compile(Pattern.quote(TABLE) + "_(before_)?p(\\d{6})");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // pg_advisory_xact_lock kulcs: a karbantartás több backend példányon se fusson párhuzamosan
+    private static final long LOCK_KEY = 0x766f74655f706172L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UpvoteProperties.Partitioning settings;
+
+    private volatile ScheduledExecutorService executor;
+
+    // A legkorábbi csatolt partíció kezdete; null, ha nincs alsó határ (kikapcsolva vagy a legacy partíció még csatolt)
+    private volatile Instant attachedFrom;
+
+    public VoteRecordPartitions(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                UpvoteProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getVotes().getPartitioning();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            throw new IllegalStateException("Vote record partitioning requires PostgreSQL, found " + product);
+        }
+        transactionTemplate.executeWithoutResult(status -> convert());
+        maintain();
+    }
+
+    // DDL is tranzakcióban fut: vagy a teljes csere megtörténik, vagy semmi
+    private void convert() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, TABLE);
+        if ("p".equals(kind)) {
+            return;
+        }
+        // A meglévő sorok mind az első hónap elé essenek; az aktuális hónap szavazatai is ide kerülnek a végéig
+        Timestamp latest = jdbcTemplate.queryForObject("SELECT max(voted_at) FROM " + TABLE, Timestamp.class);
+        YearMonth first = latest != null
+                ? YearMonth.from(latest.toInstant().atZone(ZoneOffset.UTC)).plusMonths(1)
+                : YearMonth.now(ZoneOffset.UTC);
+        String legacy = LEGACY_PREFIX + first.format(MONTH);
+        Long maxId = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM " + TABLE, Long.class);
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + legacy);
+        // A ddl-auto a név alapján keresi az indexet: a név az új, particionált táblán maradjon
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS " + VoteRecord.VOTED_AT_INDEX + " RENAME TO " + legacy + "_voted_at_idx");
+        jdbcTemplate.execute("ALTER TABLE " + legacy + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("UPDATE " + legacy + " SET voted_at = TIMESTAMPTZ 'epoch' WHERE voted_at IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + legacy + " ALTER COLUMN voted_at SET NOT NULL");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + TABLE + "_id_seq");
+        jdbcTemplate.queryForObject("SELECT setval(?, ?, false)", Long.class, TABLE + "_id_seq", maxId + 1);
+        // A partíciós kulcsnak benne kell lennie az elsődleges kulcsban; az id továbbra is egyedi a szekvenciából
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (" +
+                "id bigint NOT NULL DEFAULT nextval('" + TABLE + "_id_seq'), " +
+                "idea_id bigint NOT NULL, " +
+                "username varchar(100) NOT NULL, " +
+                "session_id varchar(200) NOT NULL, " +
+                "voted_at timestamp(6) with time zone NOT NULL, " +
+                "PRIMARY KEY (id, voted_at)) PARTITION BY RANGE (voted_at)");
+        jdbcTemplate.execute("ALTER SEQUENCE " + TABLE + "_id_seq OWNED BY " + TABLE + ".id");
+        jdbcTemplate.execute("CREATE INDEX ON " + TABLE + " (idea_id)");
+        jdbcTemplate.execute("CREATE INDEX ON " + TABLE + " (username)");
+        jdbcTemplate.execute("CREATE INDEX " + VoteRecord.VOTED_AT_INDEX + " ON " + TABLE + " (voted_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + legacy +
+                " FOR VALUES FROM (MINVALUE) TO (" + bound(first) + ")");
+        log.info("Converted {} to a partitioned table; existing rows kept in partition {}", TABLE, legacy);
+    }
+
+    /**
+     * A következő hónapok partícióinak létrehozása és a megőrzési időn túliak lecsatolása.
+     */
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+            List<String> partitions = partitions();
+            for (YearMonth month : toCreate(current, settings.getAhead(), partitions)) {
+                jdbcTemplate.execute("CREATE TABLE " + PREFIX + month.format(MONTH) + " PARTITION OF " + TABLE +
+                        " FOR VALUES FROM (" + bound(month) + ") TO (" + bound(month.plusMonths(1)) + ")");
+                log.info("Created vote record partition for {}", month);
+            }
+        });
+        if (settings.getRetentionMonths() > 0) {
+            // Hónaponként külön tranzakció: egy hiba nem görgeti vissza a már lecsatoltakat
+            for (String partition : toDetach(current, settings.getRetentionMonths(), partitions())) {
+                transactionTemplate.executeWithoutResult(status -> detach(partition));
+            }
+        }
+        // Csak a lecsatolás commitja után szűkül: addig a régebbi határ is pontos számot ad
+        attachedFrom = earliestStart(partitions()).orElse(null);
+    }
+
+    private void detach(String partition) {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+        if (!partitions().contains(partition)) {
+            return;
+        }
+        // A régi hónapba csak egy régi dátumú import írhatna; a számolás alatt ne is tegye
+        jdbcTemplate.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+        jdbcTemplate.update("INSERT INTO vote_archive_counts (idea_id, votes) " +
+                "SELECT idea_id, count(*) FROM " + partition + " GROUP BY idea_id " +
+                "ON CONFLICT (idea_id) DO UPDATE SET votes = vote_archive_counts.votes + EXCLUDED.votes");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+        if (settings.getArchive() == UpvoteProperties.Partitioning.Archive.DROP) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+        log.info("Detached vote record partition {} ({})", partition, settings.getArchive());
+    }
+
+    /**
+     * Mely szavazási időpontokhoz van most csatolt partíció; kikapcsolt particionálásnál mindhez.
+     * Ami kívül esik (lecsatolt vagy még létre nem hozott hónap), az egész írási köteget elbuktatná.
+     */
+    public Predicate<Instant> coverage() {
+        if (!settings.isEnabled()) {
+            return votedAt -> true;
+        }
+        return covers(partitions());
+    }
+
+    /**
+     * A voted_at alsó határa, ami előtt nincs csatolt partíció (az ottani szavazatok a vote_archive_counts-ban vannak).
+     * Üres, ha nincs ilyen határ: kikapcsolt particionálás, vagy a MINVALUE-tól induló legacy partíció még csatolt.
+     */
+    public Optional<Instant> attachedFrom() {
+        return Optional.ofNullable(attachedFrom);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass(?)", String.class, TABLE);
+    }
+
+    // Az első hónap előttieket a legacy partíció fedi, azokat nem hozzuk létre
+    static List<YearMonth> toCreate(YearMonth current, int ahead, Collection<String> partitions) {
+        TreeSet<YearMonth> existing = new TreeSet<>();
+        YearMonth first = null;
+        for (String partition : partitions) {
+            Matcher matcher = NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(matcher.group(2), MONTH);
+            if (matcher.group(1) != null) {
+                first = first == null || month.isAfter(first) ? month : first;
+            } else {
+                existing.add(month);
+            }
+        }
+        List<YearMonth> missing = new ArrayList<>();
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(ahead)); month = month.plusMonths(1)) {
+            if ((first == null || !month.isBefore(first)) && !existing.contains(month)) {
+                missing.add(month);
+            }
+        }
+        return missing;
+    }
+
+    // Egy partíció akkor jár le, ha a vége legalább retention teljes hónappal az aktuális hónap előtt van
+    static List<String> toDetach(YearMonth current, int retentionMonths, Collection<String> partitions) {
+        YearMonth keepFrom = current.minusMonths(retentionMonths);
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            end(partition).filter(end -> !end.isAfter(keepFrom)).ifPresent(end -> expired.add(partition));
+        }
+        expired.sort(null);
+        return expired;
+    }
+
+    static Predicate<Instant> covers(Collection<String> partitions) {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        YearMonth legacyEnd = null;
+        for (String partition : partitions) {
+            Matcher matcher = NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(matcher.group(2), MONTH);
+            if (matcher.group(1) != null) {
+                legacyEnd = month;
+            } else {
+                months.add(month);
+            }
+        }
+        YearMonth before = legacyEnd;
+        return votedAt -> {
+            YearMonth month = YearMonth.from(votedAt.atZone(ZoneOffset.UTC));
+            return (before != null && month.isBefore(before)) || months.contains(month);
+        };
+    }
+
+    static Optional<Instant> earliestStart(Collection<String> partitions) {
+        YearMonth earliest = null;
+        for (String partition : partitions) {
+            Matcher matcher = NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            if (matcher.group(1) != null) {
+                return Optional.empty();
+            }
+            YearMonth month = YearMonth.parse(matcher.group(2), MONTH);
+            earliest = earliest == null || month.isBefore(earliest) ? month : earliest;
+        }
+        return Optional.ofNullable(earliest).map(month -> month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    // A partíció utáni első hónap
+    private static Optional<YearMonth> end(String partition) {
+        Matcher matcher = NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        YearMonth month = YearMonth.parse(matcher.group(2), MONTH);
+        return Optional.of(matcher.group(1) != null ? month : month.plusMonths(1));
+    }
+
+    // A partíció határok DDL literálok (nem lehetnek bind paraméterek); csak általunk képzett értékek
+    static String bound(YearMonth month) {
+        LocalDate start = month.atDay(1);
+        return "TIMESTAMPTZ '" + start + " 00:00:00+00'";
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            // Az előre létrehozott hónapok miatt egy kimaradt kör nem okoz hibát a szavazásban
+            log.warn("Vote record partition maintenance failed", e);
+        }
+    }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vote-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::maintainQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        executor = scheduler;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = executor;
+        if (scheduler == null) {
+            return;
+        }
+        executor = null;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
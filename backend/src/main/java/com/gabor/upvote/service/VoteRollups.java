@@ -0,0 +1,385 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.dto.VoteSeries;
+import com.gabor.upvote.model.VoteRollup;
+import com.gabor.upvote.model.VoteRollup.Granularity;
+import com.gabor.upvote.model.VoteRollupWatermark;
+import com.gabor.upvote.repository.VoteRollupRepository;
+import com.gabor.upvote.repository.VoteRollupWatermarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ötletenkénti szavazat idősorok: a vote_records új sorait id watermark szerint követve a perces, órás és
+ * napos szeletek számlálóit növeli, egy köteget egy tranzakcióban. Minden szavazási mód (és az import)
+ * a vote_records táblába ír, így a szavazás útját nem terheli, és több backend példány mellett is működik:
+ * a watermark sorát az aggregáló tranzakció zárolja.
+ * <p>
+ * Az IDENTITY id-k nem a commit sorrendjében válnak láthatóvá, ezért csak a settle ideje óta látott
+ * legnagyobb id-ig haladunk; addigra a kisebb id-jű, még futó tranzakciók jellemzően commitolnak. Ami ennél
+ * is tovább tart (pl. zárra váró köteg), annak az id-je kimarad: a kimaradt tartományokat a vote_rollup_gaps
+ * tábla őrzi, és minden kör újra megnézi őket a gap-timeout lejártáig.
+ */
+@Component
+public class VoteRollups implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteRollups.class);
+
+    static final String WATERMARK = "vote_records";
+
+    // Egy idősor legfeljebb ennyi szeletből áll
+    static final int MAX_BUCKETS = 1000;
+
+    private static final Duration CLEANUP_INTERVAL = Duration.ofHours(1);
+
+    private final VoteRollupRepository rollupRepository;
+    private final VoteRollupWatermarkRepository watermarkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UpvoteProperties.Rollups settings;
+
+    // (System.nanoTime(), max(id)) megfigyelések; a settle időnél régebbiek id-jéig biztonságos haladni
+    private final Deque<long[]> observed = new ArrayDeque<>();
+    private long settledId;
+    private Instant nextCleanup = Instant.MIN;
+
+    private volatile ScheduledExecutorService executor;
+
+    public VoteRollups(VoteRollupRepository rollupRepository,
+                       VoteRollupWatermarkRepository watermarkRepository,
+                       JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       UpvoteProperties properties) {
+        this.rollupRepository = rollupRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getRollups();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * A watermark óta beírt (és már biztosan commitolt) szavazatok hozzáadása a rollupokhoz.
+     *
+     * @return a feldolgozott vote_records sorok száma
+     */
+    public synchronized long aggregate() {
+        long current = maxId();
+        long bound = settledId(current);
+        long total = transactionTemplate.execute(status -> recheckGaps(current));
+        int processed;
+        do {
+            processed = transactionTemplate.execute(status -> aggregateBatch(bound));
+            total += processed;
+        } while (processed == settings.getBatchSize());
+        cleanupIfDue();
+        return total;
+    }
+
+    private int aggregateBatch(long bound) {
+        VoteRollupWatermark watermark = lockWatermark();
+        long from = watermark.getLastId();
+        if (from >= bound) {
+            return 0;
+        }
+
+        Instant now = Instant.now();
+        Map<Bucket, Long> counts = new HashMap<>();
+        List<long[]> gaps = new ArrayList<>();
+        long[] last = {from};
+        int[] rows = {0};
+        jdbcTemplate.query("SELECT id, idea_id, voted_at FROM vote_records WHERE id > ? AND id <= ? ORDER BY id LIMIT ?",
+                row -> {
+                    rows[0]++;
+                    long id = row.getLong(1);
+                    if (id > last[0] + 1) {
+                        gaps.add(new long[]{last[0] + 1, id - 1});
+                    }
+                    last[0] = id;
+                    count(counts, row, now);
+                }, from, bound, settings.getBatchSize());
+
+        // Rövidebb köteg: a bound-ig minden sort láttunk
+        long lastId = rows[0] < settings.getBatchSize() ? bound : last[0];
+        if (lastId > last[0]) {
+            gaps.add(new long[]{last[0] + 1, lastId});
+        }
+        counts.forEach(this::add);
+        insertGaps(gaps, now);
+        watermark.setLastId(lastId);
+        return rows[0];
+    }
+
+    // A kimaradt tartományokban azóta megjelent sorok hozzáadása; a lejárt tartományokat elengedjük
+    private int recheckGaps(long current) {
+        VoteRollupWatermark watermark = lockWatermark();
+        if (watermark.getLastId() > current) {
+            // A vote_records id-k újrakezdődtek (a tábla újra lett létrehozva): a mostani végéről folytatjuk
+            log.warn("Vote record ids restarted below the rollup watermark ({} > {}), continuing from {}",
+                    watermark.getLastId(), current, current);
+            watermark.setLastId(current);
+            jdbcTemplate.update("DELETE FROM vote_rollup_gaps");
+            return 0;
+        }
+        Instant now = Instant.now();
+        jdbcTemplate.update("DELETE FROM vote_rollup_gaps WHERE seen_at < ?",
+                Timestamp.from(now.minus(settings.getGapTimeout())));
+
+        Map<Long, Gap> gaps = new HashMap<>();
+        jdbcTemplate.query("SELECT from_id, to_id, seen_at FROM vote_rollup_gaps", row -> {
+            gaps.put(row.getLong(1), new Gap(row.getLong(1), row.getLong(2), row.getTimestamp(3).toInstant()));
+        });
+        if (gaps.isEmpty()) {
+            return 0;
+        }
+
+        Map<Bucket, Long> counts = new HashMap<>();
+        Map<Long, List<Long>> found = new HashMap<>();
+        jdbcTemplate.query("SELECT r.id, r.idea_id, r.voted_at, g.from_id FROM vote_records r " +
+                        "JOIN vote_rollup_gaps g ON r.id >= g.from_id AND r.id <= g.to_id ORDER BY r.id",
+                row -> {
+                    found.computeIfAbsent(row.getLong(4), gap -> new ArrayList<>()).add(row.getLong(1));
+                    count(counts, row, now);
+                });
+        if (found.isEmpty()) {
+            return 0;
+        }
+        counts.forEach(this::add);
+
+        int rows = 0;
+        for (Map.Entry<Long, List<Long>> ids : found.entrySet()) {
+            Gap gap = gaps.get(ids.getKey());
+            jdbcTemplate.update("DELETE FROM vote_rollup_gaps WHERE from_id = ?", gap.from());
+            // A tartomány megmaradt részei az eredeti időbélyeggel, hogy a lejárat ne tolódjon
+            insertGaps(remaining(gap.from(), gap.to(), ids.getValue()), gap.seenAt());
+            rows += ids.getValue().size();
+        }
+        log.info("Added {} late-committed vote records to rollups", rows);
+        return rows;
+    }
+
+    private VoteRollupWatermark lockWatermark() {
+        watermarkRepository.insertIfAbsent(WATERMARK);
+        return watermarkRepository.lockByName(WATERMARK).orElseThrow();
+    }
+
+    // A megőrzési időn túli perces / órás szeletet a takarítás úgyis törölné (pl. régi import)
+    private void count(Map<Bucket, Long> counts, ResultSet row, Instant now) throws SQLException {
+        Timestamp timestamp = row.getTimestamp(3);
+        if (timestamp == null) {
+            return;
+        }
+        long ideaId = row.getLong(2);
+        Instant votedAt = timestamp.toInstant();
+        if (!votedAt.isBefore(now.minus(settings.getMinuteRetention()))) {
+            counts.merge(new Bucket(ideaId, Granularity.MINUTE, Granularity.MINUTE.bucketOf(votedAt)), 1L, Long::sum);
+        }
+        if (!votedAt.isBefore(now.minus(settings.getHourRetention()))) {
+            counts.merge(new Bucket(ideaId, Granularity.HOUR, Granularity.HOUR.bucketOf(votedAt)), 1L, Long::sum);
+        }
+        counts.merge(new Bucket(ideaId, Granularity.DAY, Granularity.DAY.bucketOf(votedAt)), 1L, Long::sum);
+    }
+
+    private void insertGaps(List<long[]> gaps, Instant seenAt) {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vote_rollup_gaps (from_id, to_id, seen_at) VALUES (?, ?, ?)", gaps,
+                gaps.size(), (ps, gap) -> {
+                    ps.setLong(1, gap[0]);
+                    ps.setLong(2, gap[1]);
+                    ps.setTimestamp(3, Timestamp.from(seenAt));
+                });
+    }
+
+    // A [from, to] tartomány részei a megtalált (növekvő) id-k nélkül
+    static List<long[]> remaining(long from, long to, List<Long> found) {
+        List<long[]> parts = new ArrayList<>();
+        long next = from;
+        for (long id : found) {
+            if (id > next) {
+                parts.add(new long[]{next, id - 1});
+            }
+            next = id + 1;
+        }
+        if (next <= to) {
+            parts.add(new long[]{next, to});
+        }
+        return parts;
+    }
+
+    private void add(Bucket bucket, long delta) {
+        String granularity = bucket.granularity().name();
+        while (rollupRepository.increment(bucket.ideaId(), granularity, bucket.start(), delta) == 0) {
+            if (rollupRepository.insertIfAbsent(bucket.ideaId(), granularity, bucket.start(), delta) == 1) {
+                return;
+            }
+        }
+    }
+
+    private long maxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT max(id) FROM vote_records", Long.class);
+        return max != null ? max : 0;
+    }
+
+    private long settledId(long current) {
+        long now = System.nanoTime();
+        observed.addLast(new long[]{now, current});
+        long settle = settings.getSettle().toNanos();
+        while (!observed.isEmpty() && now - observed.peekFirst()[0] >= settle) {
+            settledId = Math.max(settledId, observed.pollFirst()[1]);
+        }
+        // Újra létrehozott (kiürített) táblánál egy régi megfigyelés ne vigye a watermarkot a mostani id-k fölé
+        return Math.min(settledId, current);
+    }
+
+    private void cleanupIfDue() {
+        Instant now = Instant.now();
+        if (now.isBefore(nextCleanup)) {
+            return;
+        }
+        nextCleanup = now.plus(CLEANUP_INTERVAL);
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteOlderThan(Granularity.MINUTE, now.minus(settings.getMinuteRetention()));
+            rollupRepository.deleteOlderThan(Granularity.HOUR, now.minus(settings.getHourRetention()));
+        });
+    }
+
+    /**
+     * Az ötlet idősora a [from, to) tartományban, a szeletekhez igazítva. Alapból a legutóbbi
+     * 60 perc / 48 óra / 30 nap, a mostani szelettel együtt.
+     */
+    public VoteSeries series(Long ideaId, String granularity, Instant from, Instant to) {
+        if (!settings.isEnabled()) {
+            throw new NoSuchElementException("Vote rollups are disabled");
+        }
+        Granularity unit = parse(granularity);
+        Instant end = to != null ? ceil(unit, to) : unit.bucketOf(Instant.now()).plus(1, unit.getUnit());
+        Instant start = from != null ? unit.bucketOf(from) : end.minus(defaultBuckets(unit), unit.getUnit());
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (unit.getUnit().between(start, end) > MAX_BUCKETS) {
+            throw new IllegalArgumentException("A series may contain at most " + MAX_BUCKETS + " buckets");
+        }
+
+        Iterator<VoteRollup> stored = rollupRepository.findSeries(ideaId, unit, start, end).iterator();
+        VoteRollup next = stored.hasNext() ? stored.next() : null;
+        List<VoteSeries.Bucket> buckets = new ArrayList<>();
+        for (Instant bucket = start; bucket.isBefore(end); bucket = bucket.plus(1, unit.getUnit())) {
+            long votes = 0;
+            if (next != null && next.getBucketStart().equals(bucket)) {
+                votes = next.getVotes();
+                next = stored.hasNext() ? stored.next() : null;
+            }
+            buckets.add(new VoteSeries.Bucket(bucket, votes));
+        }
+        return new VoteSeries(ideaId, unit.name().toLowerCase(Locale.ROOT), start, end, buckets);
+    }
+
+    private static Granularity parse(String granularity) {
+        try {
+            return Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Granularity must be one of minute, hour, day");
+        }
+    }
+
+    private static Instant ceil(Granularity unit, Instant instant) {
+        Instant floor = unit.bucketOf(instant);
+        return floor.equals(instant) ? floor : floor.plus(1, unit.getUnit());
+    }
+
+    private static int defaultBuckets(Granularity unit) {
+        return switch (unit) {
+            case MINUTE -> 60;
+            case HOUR -> 48;
+            case DAY -> 30;
+        };
+    }
+
+    private void aggregateQuietly() {
+        try {
+            long processed = aggregate();
+            if (processed > 0) {
+                log.debug("Aggregated {} votes into rollups", processed);
+            }
+        } catch (RuntimeException e) {
+            // A watermark nem mozdult, a következő kör újra próbálja
+            log.warn("Vote rollup aggregation failed", e);
+        }
+    }
+
+    private record Bucket(Long ideaId, Granularity granularity, Instant start) { }
+
+    private record Gap(long from, long to, Instant seenAt) { }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vote-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::aggregateQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        executor = scheduler;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = executor;
+        if (scheduler == null) {
+            return;
+        }
+        executor = null;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,173 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.IdeaVoteSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Striped szavazatszámláló az adatbázisban (upvote.votes.mode=striped): ötletenként N slot sor az
+ * idea_vote_slots táblában, a szavazás egy véletlen slotot növel. Egy népszerű ötletre érkező
+ * szavazatok így N sor között oszlanak meg, több backend példány mellett is.
+ * <p>
+ * A fold időnként slotonként relatív csökkentéssel átírja a felgyűlt szavazatokat az ideas.votes
+ * oszlopba, hogy a listázások rendezése helyes maradjon. Ötletenként zárolja és újraolvassa a slotokat,
+ * így az ideas.votes + slotok összege minden pillanatban a valódi szám, párhuzamosan futó (több node-on
+ * induló) fold mellett is.
+ */
+@Component
+public class VoteSlotCounter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteSlotCounter.class);
+
+    private final IdeaVoteSlotRepository slotRepository;
+    private final IdeaRepository ideaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UpvoteProperties.Striped settings;
+    private final boolean enabled;
+
+    // Sikeres, nem üres fold-ok száma: ettől változik az adatbázisból olvasott lista
+    private final AtomicLong folds = new AtomicLong();
+
+    private volatile ScheduledExecutorService executor;
+
+    public VoteSlotCounter(IdeaVoteSlotRepository slotRepository,
+                           IdeaRepository ideaRepository,
+                           PlatformTransactionManager transactionManager,
+                           UpvoteProperties properties) {
+        this.slotRepository = slotRepository;
+        this.ideaRepository = ideaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getVotes().getStriped();
+        this.enabled = properties.getVotes().getMode() == VoteMode.STRIPED;
+    }
+
+    /**
+     * Egy szavazat egy véletlen slotba; a hívó tranzakciójában fut.
+     */
+    public void increment(Long ideaId) {
+        int slot = ThreadLocalRandom.current().nextInt(settings.getSlots());
+        // A sor hiányozhat (első szavazat, vagy a fold törölte), a beszúrás pedig ütközhet egy párhuzamossal
+        while (slotRepository.increment(ideaId, slot) == 0) {
+            if (slotRepository.insertIfAbsent(ideaId, slot) == 1) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Az ötlet még az ideas.votes oszlopba vissza nem írt szavazatai.
+     */
+    public long pending(Long ideaId) {
+        return slotRepository.sumVotes(ideaId);
+    }
+
+    /**
+     * A slotok átírása az ideas sorokba, ötletenként egy rövid tranzakcióban.
+     *
+     * @return az átírt szavazatok száma
+     */
+    public long fold() {
+        return fold(slotRepository.findUnfoldedIdeaIds());
+    }
+
+    // Az ötletlista lehet elavult (egy másik node közben átírta): a slotokat a tranzakció újraolvassa
+    long fold(Collection<Long> ideaIds) {
+        long total = 0;
+        for (Long ideaId : ideaIds) {
+            total += transactionTemplate.execute(status -> foldIdea(ideaId));
+        }
+        if (total != 0) {
+            folds.incrementAndGet();
+        }
+        return total;
+    }
+
+    private long foldIdea(Long ideaId) {
+        long delta = 0;
+        // A zárolt slotokat párhuzamos fold nem írhatja át, így minden szavazat pontosan egyszer kerül át
+        for (Object[] slot : slotRepository.lockUnfolded(ideaId)) {
+            long votes = ((Number) slot[1]).longValue();
+            if (slotRepository.subtract(ideaId, ((Number) slot[0]).intValue(), votes) == 1) {
+                delta += votes;
+            }
+        }
+        if (delta == 0) {
+            return 0;
+        }
+        // Törölt ötletnél nincs mit növelni, a slotjai ettől még eltűnnek
+        ideaRepository.incrementVotes(ideaId, Math.toIntExact(delta));
+        slotRepository.deleteEmpty(ideaId);
+        return delta;
+    }
+
+    public long foldCount() {
+        return folds.get();
+    }
+
+    private void foldQuietly() {
+        try {
+            fold();
+        } catch (RuntimeException e) {
+            // A slotok megmaradnak, a következő fold újra próbálja
+            log.warn("Vote slot fold failed", e);
+        }
+    }
+
+    // --- életciklus ---
+
+    @Override
+    public void start() {
+        if (!enabled || !settings.isFold()) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vote-slot-fold");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getFoldInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::foldQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        executor = scheduler;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = executor;
+        if (scheduler == null) {
+            return;
+        }
+        executor = null;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        foldQuietly();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    // A web szerver leállítása után fusson (már nem jön új szavazat), de még az adatforrás lezárása előtt
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
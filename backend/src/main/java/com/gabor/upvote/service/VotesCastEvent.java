@@ -0,0 +1,30 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.IdeaSummary;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Elfogadott szavazatok, egyenként az időpontjukkal (commit után kerül kézbesítésre). Az IdeaChangedEvent
+ * csak az ötletek új állapotát hordozza; az időfüggő rangsorokhoz a szavazatok ideje is kell.
+ */
+public class VotesCastEvent {
+
+    /**
+     * @param idea az ötlet állapota a szavazat után
+     */
+    public record Cast(IdeaSummary idea, Instant votedAt) { }
+
+    private final List<Cast> casts;
+
+    public VotesCastEvent(List<Cast> casts) {
+        this.casts = List.copyOf(casts);
+    }
+
+    public static VotesCastEvent of(IdeaSummary idea, Instant votedAt) {
+        return new VotesCastEvent(List.of(new Cast(idea, votedAt)));
+    }
+
+    public List<Cast> getCasts() { return casts; }
+}
@@ -0,0 +1,88 @@
+package com.gabor.upvote.config;
+
+import com.gabor.upvote.service.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new CachingAuthenticationProvider(delegate, new UpvoteProperties.CacheSettings());
+    }
+
+    @Test
+    void shouldVerifyCredentialsOnlyOnce() {
+        when(delegate.authenticate(any())).thenReturn(authenticated("alice"));
+
+        Authentication first = provider.authenticate(attempt("alice", "secret"));
+        Authentication second = provider.authenticate(attempt("alice", "secret"));
+
+        assertTrue(second.isAuthenticated());
+        assertEquals("alice", second.getName());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertNull(second.getCredentials());
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    void shouldNotServeCachedResultForDifferentPassword() {
+        when(delegate.authenticate(any()))
+                .thenReturn(authenticated("alice"))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        provider.authenticate(attempt("alice", "secret"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(attempt("alice", "wrong")));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void shouldNotCacheFailedAttempts() {
+        when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(attempt("bob", "guess")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(attempt("bob", "guess")));
+
+        verify(delegate, times(2)).authenticate(any());
+        assertEquals(0, provider.size());
+    }
+
+    @Test
+    void shouldReverifyAfterUserChanged() {
+        when(delegate.authenticate(any())).thenReturn(authenticated("alice"));
+
+        provider.authenticate(attempt("alice", "secret"));
+        provider.onUserChanged(new UserChangedEvent("alice"));
+        provider.authenticate(attempt("alice", "secret"));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private static Authentication attempt(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+
+    private static Authentication authenticated(String username) {
+        return UsernamePasswordAuthenticationToken.authenticated(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+    }
+}
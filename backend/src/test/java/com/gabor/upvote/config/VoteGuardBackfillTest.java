@@ -0,0 +1,56 @@
+package com.gabor.upvote.config;
+
+import com.gabor.upvote.repository.StartupTaskRepository;
+import com.gabor.upvote.repository.VoteGuardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VoteGuardBackfillTest {
+
+    @Mock
+    private VoteGuardRepository voteGuardRepository;
+
+    @Mock
+    private StartupTaskRepository startupTaskRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private VoteGuardBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        backfill = new VoteGuardBackfill(voteGuardRepository, startupTaskRepository, transactionManager);
+    }
+
+    @Test
+    void shouldBackfillOnceAndMarkCompleted() {
+        when(startupTaskRepository.existsById(VoteGuardBackfill.TASK)).thenReturn(false);
+
+        backfill.afterSingletonsInstantiated();
+
+        verify(voteGuardRepository).backfillFromVoteRecords();
+        verify(startupTaskRepository).markCompleted(eq(VoteGuardBackfill.TASK), any(Instant.class));
+    }
+
+    @Test
+    void shouldSkipScanWhenAlreadyCompleted() {
+        when(startupTaskRepository.existsById(VoteGuardBackfill.TASK)).thenReturn(true);
+
+        backfill.afterSingletonsInstantiated();
+
+        verifyNoInteractions(voteGuardRepository);
+        verify(startupTaskRepository, never()).markCompleted(any(), any());
+    }
+}
@@ -0,0 +1,83 @@
+package com.gabor.upvote.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.gabor.upvote.dto.RegistrationRequest;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class BinaryFormatIntegrationTest {
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldListIdeasAsCborWhenRequested() throws Exception {
+        Idea idea = new Idea("Binary idea", "Desc");
+        idea.setApproved(true);
+        ideaRepository.save(idea);
+
+        byte[] body = mockMvc.perform(get("/api/ideas").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode ideas = new CBORMapper().readTree(body);
+        assertEquals("Binary idea", ideas.get(0).get("title").asText());
+        // Ugyanaz a dátumformátum, mint a JSON válaszban
+        assertTrue(ideas.get(0).get("createdAt").isTextual());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldKeepJsonAsDefault() throws Exception {
+        mockMvc.perform(get("/api/ideas").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void shouldRegisterWithSmileResponse() throws Exception {
+        RegistrationRequest request = new RegistrationRequest();
+        request.setUsername("smileuser");
+        request.setPassword("password123");
+        request.setEmail("smileuser@example.com");
+
+        byte[] body = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(SMILE)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals("smileuser", new SmileMapper().readTree(body).get("username").asText());
+    }
+}
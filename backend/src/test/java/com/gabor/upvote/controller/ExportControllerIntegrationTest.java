@@ -0,0 +1,106 @@
+package com.gabor.upvote.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.model.VoteRecord;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Nem @Transactional: az export a saját (async) szálán, külön tranzakcióban olvas
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Autowired
+    private VoteRecordRepository voteRecordRepository;
+
+    private Idea first;
+
+    @BeforeEach
+    void setUp() {
+        first = ideaRepository.save(new Idea("First", "Desc"));
+        ideaRepository.save(new Idea("Second", "Desc"));
+        voteRecordRepository.save(new VoteRecord(first.getId(), "exporter", "session"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        voteRecordRepository.deleteAll();
+        ideaRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldStreamIdeasAsNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/admin/export/ideas"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("First", objectMapper.readTree(lines[0]).get("title").asText());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldStreamGzippedVoteRecords() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/admin/export/votes").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode record = objectMapper.readTree(gunzip(body).trim());
+        assertEquals("exporter", record.get("username").asText());
+        assertEquals(first.getId().longValue(), record.get("ideaId").asLong());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldNotExportAsUser() throws Exception {
+        mockMvc.perform(get("/api/admin/export/ideas"))
+                .andExpect(status().isForbidden());
+    }
+
+    private static String gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -77,7 +77,93 @@ class IdeaControllerIntegrationTest {
         mockMvc.perform(get("/api/ideas"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].title").value("Approved Idea"));
+                .andExpect(jsonPath("$[0].title").value("Approved Idea"))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldReturnDescriptionOnlyInIdeaDetails() throws Exception {
+        Idea approved = new Idea("Approved Idea", "Long description");
+        approved.setApproved(true);
+        Long approvedId = ideaRepository.save(approved).getId();
+        Long pendingId = ideaRepository.save(new Idea("Pending Idea", "Secret")).getId();
+
+        mockMvc.perform(get("/api/ideas/" + approvedId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Long description"));
+
+        mockMvc.perform(get("/api/ideas/" + pendingId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldPageApprovedIdeasWithCursor() throws Exception {
+        for (int votes : new int[] {5, 3, 3}) {
+            Idea idea = new Idea("Idea " + votes, "Description");
+            idea.setApproved(true);
+            idea.setVotes(votes);
+            ideaRepository.save(idea);
+        }
+
+        String body = mockMvc.perform(get("/api/ideas/page").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].votes").value(5))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(body).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/ideas/page").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].votes").value(3))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/ideas/page").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldAskForResetWhenChangesRequestedWithoutVersion() throws Exception {
+        mockMvc.perform(get("/api/ideas/changes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reset").value(true))
+                .andExpect(jsonPath("$.version").isNumber())
+                .andExpect(jsonPath("$.changed", hasSize(0)));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldOpenIdeaStream() throws Exception {
+        mockMvc.perform(get("/api/ideas/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void shouldRequireAuthenticationForIdeaStream() throws Exception {
+        mockMvc.perform(get("/api/ideas/stream"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldPagePendingIdeasForAdmin() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            ideaRepository.save(new Idea("Pending " + i, "Desc"));
+        }
+
+        mockMvc.perform(get("/api/ideas/pending/page").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
     }
 
     @Test
@@ -116,6 +202,42 @@ class IdeaControllerIntegrationTest {
                 .andExpect(jsonPath("$.approved").value(true));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldApproveAndRejectIdeasInBatch() throws Exception {
+        Long first = ideaRepository.save(new Idea("Batch 1", "Desc")).getId();
+        Long second = ideaRepository.save(new Idea("Batch 2", "Desc")).getId();
+        Long third = ideaRepository.save(new Idea("Batch 3", "Desc")).getId();
+
+        mockMvc.perform(post("/api/ideas/batch/approve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [" + first + ", " + second + ", 999999]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed", hasSize(2)))
+                .andExpect(jsonPath("$.skipped[0]").value(999999));
+
+        mockMvc.perform(post("/api/ideas/batch/reject")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [" + third + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed[0]").value(third));
+
+        mockMvc.perform(get("/api/ideas/pending"))
+                .andExpect(jsonPath("$[?(@.id == " + third + ")]").isEmpty());
+        mockMvc.perform(get("/api/ideas"))
+                .andExpect(jsonPath("$[?(@.id == " + first + ")]").exists())
+                .andExpect(jsonPath("$[?(@.id == " + second + ")]").exists());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldNotModerateInBatchAsUser() throws Exception {
+        mockMvc.perform(post("/api/ideas/batch/reject")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1]}"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(username = "user", roles = "USER")
     void shouldNotApproveIdeaAsUser() throws Exception {
@@ -0,0 +1,88 @@
+package com.gabor.upvote.controller;
+
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.service.IdeaChangeLog;
+import com.gabor.upvote.service.IdeaChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.iterableWithSize;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "upvote.listing.etag=true")
+@AutoConfigureMockMvc
+@Transactional
+class IdeaListingETagIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdeaChangeLog changeLog;
+
+    @SpyBean
+    private IdeaRepository ideaRepository;
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldAnswerUnchangedListingWithNotModifiedBeforeQuerying() throws Exception {
+        String etag = mockMvc.perform(get("/api/ideas"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        clearInvocations(ideaRepository);
+
+        mockMvc.perform(get("/api/ideas").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verifyNoInteractions(ideaRepository);
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldReturnFreshListingAfterBoardChanged() throws Exception {
+        String etag = mockMvc.perform(get("/api/ideas"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Idea idea = new Idea("Changed", "Desc");
+        idea.setId(42L);
+        idea.setApproved(true);
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.APPROVED, idea));
+
+        mockMvc.perform(get("/api/ideas").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldSendSingleETagOnPendingListing() throws Exception {
+        String etag = mockMvc.perform(get("/api/ideas/pending"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, iterableWithSize(1)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/ideas/pending").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Idea idea = new Idea("Submitted", "Desc");
+        idea.setId(43L);
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.SUBMITTED, idea));
+
+        mockMvc.perform(get("/api/ideas/pending").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, iterableWithSize(1)));
+    }
+}
@@ -0,0 +1,151 @@
+package com.gabor.upvote.controller;
+
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.service.IdeaChangeLog;
+import com.gabor.upvote.service.IdeaChangedEvent;
+import com.gabor.upvote.service.IdeaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.iterableWithSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"upvote.listing.etag=true", "upvote.listing.response-cache=true"})
+@AutoConfigureMockMvc
+@Transactional
+class IdeaListingResponseCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdeaChangeLog changeLog;
+
+    @Autowired
+    private IdeaService ideaService;
+
+    @SpyBean
+    private IdeaRepository ideaRepository;
+
+    private Idea idea;
+
+    @BeforeEach
+    void setUp() {
+        idea = new Idea("Cached idea", "Long description");
+        idea.setApproved(true);
+        idea = ideaRepository.save(idea);
+        // A beküldés eseménye a teszt tranzakcióban nem fut le, a verziót kézzel léptetjük
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.APPROVED, idea));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldServeSameBytesWithoutQueryingUntilBoardChanges() throws Exception {
+        String first = mockMvc.perform(get("/api/ideas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.title == 'Cached idea')]").exists())
+                .andReturn().getResponse().getContentAsString();
+        clearInvocations(ideaRepository);
+
+        String second = mockMvc.perform(get("/api/ideas"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT_ENCODING))))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, second);
+        verifyNoInteractions(ideaRepository);
+
+        idea.setVotes(5);
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea));
+
+        mockMvc.perform(get("/api/ideas")).andExpect(status().isOk());
+        verify(ideaRepository).findApprovedSummaries();
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldAnswerNotModifiedBeforeRenderingNewVersion() throws Exception {
+        String stale = mockMvc.perform(get("/api/ideas"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        idea.setVotes(3);
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea));
+        clearInvocations(ideaRepository);
+
+        mockMvc.perform(get("/api/ideas").header(HttpHeaders.IF_NONE_MATCH, ideaService.listingETag()))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(ideaRepository);
+
+        String fresh = mockMvc.perform(get("/api/ideas").header(HttpHeaders.IF_NONE_MATCH, stale))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, iterableWithSize(1)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(ideaService.listingETag(), fresh);
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldServeGzipVariantWithItsOwnETag() throws Exception {
+        MockHttpServletResponse plain = mockMvc.perform(get("/api/ideas"))
+                .andReturn().getResponse();
+        MockHttpServletResponse gzip = mockMvc.perform(get("/api/ideas").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))) {
+            assertEquals(plain.getContentAsString(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertNotEquals(plain.getHeader(HttpHeaders.ETAG), gzip.getHeader(HttpHeaders.ETAG));
+
+        mockMvc.perform(get("/api/ideas")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzip.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldHonourGzipQualityValues() throws Exception {
+        for (String refused : new String[]{"gzip;q=0, br", "x-gzip", "*;q=0.5, gzip;q=0"}) {
+            mockMvc.perform(get("/api/ideas").header(HttpHeaders.ACCEPT_ENCODING, refused))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        }
+        mockMvc.perform(get("/api/ideas").header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, *;q=0.1"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldSerialiseCborBesideCachedJson() throws Exception {
+        String jsonETag = mockMvc.perform(get("/api/ideas"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String cborETag = mockMvc.perform(get("/api/ideas").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(jsonETag, cborETag);
+    }
+}
@@ -0,0 +1,64 @@
+package com.gabor.upvote.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gabor.upvote.dto.RegistrationRequest;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@Transactional
+class MetricsEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Test
+    void shouldExposeServiceMetricsOnPrometheusEndpoint() throws Exception {
+        RegistrationRequest request = new RegistrationRequest();
+        request.setUsername("metricsuser");
+        request.setPassword("password123");
+        request.setEmail("metricsuser@example.com");
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        Long ideaId = ideaRepository.save(new Idea("Metrics", "Desc")).getId();
+        mockMvc.perform(post("/api/ideas/" + ideaId + "/approve").with(httpBasic("admin", "admin")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/ideas/" + ideaId + "/vote").with(httpBasic("metricsuser", "password123")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("admin", "admin")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("upvote_auth_register_seconds_count 1.0")))
+                .andExpect(content().string(containsString("upvote_ideas_approve_seconds_count 1.0")))
+                .andExpect(content().string(containsString("upvote_ideas_vote_seconds_count 1.0")))
+                .andExpect(content().string(containsString("upvote_auth_password_encode_seconds")))
+                .andExpect(content().string(containsString("upvote_votes_total{outcome=\"accepted\"")))
+                .andExpect(content().string(containsString(
+                        "upvote_http_sql_statements_count{method=\"POST\",uri=\"/api/auth/register\"")));
+    }
+}
@@ -0,0 +1,147 @@
+package com.gabor.upvote.controller;
+
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.model.VoteGuard;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteGuardRepository;
+import com.gabor.upvote.service.VoteBatchWriter;
+import com.gabor.upvote.service.VoteBatchWriter.PendingVote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class VoteImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Autowired
+    private VoteGuardRepository voteGuardRepository;
+
+    @Autowired
+    private VoteBatchWriter batchWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long ideaA;
+    private Long ideaB;
+    private Long pending;
+
+    @BeforeEach
+    void setUp() {
+        ideaA = approvedIdea("Import A");
+        ideaB = approvedIdea("Import B");
+        pending = ideaRepository.save(new Idea("Import pending", "Desc")).getId();
+        voteGuardRepository.save(new VoteGuard("import-old", ideaA));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldImportValidRowsAndReportRejectionsPerRow() throws Exception {
+        String body = String.join("\n",
+                row(ideaA, "import-u1"),
+                row(ideaA, "import-u2"),
+                row(ideaB, "import-u3"),
+                row(pending, "import-u4"),
+                row(999_999L, "import-u5"),
+                row(ideaA, "import-old"),
+                row(ideaB, "import-u1"),
+                "{\"ideaId\": " + ideaA + "}");
+
+        mockMvc.perform(post("/api/admin/votes/import").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(8))
+                .andExpect(jsonPath("$.accepted").value(3))
+                .andExpect(jsonPath("$.rejections", hasSize(5)))
+                .andExpect(jsonPath("$.rejections[0].index").value(3))
+                .andExpect(jsonPath("$.rejections[0].reason").value("UNKNOWN_IDEA"))
+                .andExpect(jsonPath("$.rejections[1].reason").value("UNKNOWN_IDEA"))
+                .andExpect(jsonPath("$.rejections[2].reason").value("ALREADY_VOTED"))
+                .andExpect(jsonPath("$.rejections[3].reason").value("DUPLICATE_IN_IMPORT"))
+                .andExpect(jsonPath("$.rejections[4].reason").value("INVALID"));
+
+        assertEquals(2, votes(ideaA));
+        assertEquals(1, votes(ideaB));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM vote_records WHERE session_id = 'bulk-import'", Integer.class));
+        assertTrue(voteGuardRepository.existsById("import-u3"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldAcceptJsonArray() throws Exception {
+        mockMvc.perform(post("/api/admin/votes/import").contentType("application/json")
+                        .content("[" + row(ideaA, "import-u1") + "," + row(ideaB, "import-u2") + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldRejectMalformedInput() throws Exception {
+        mockMvc.perform(post("/api/admin/votes/import").contentType("application/x-ndjson")
+                        .content(row(ideaA, "import-u1") + "\n{\"ideaId\": \"abc\"}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(1, votes(ideaA));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void shouldNotAllowImportForUsers() throws Exception {
+        mockMvc.perform(post("/api/admin/votes/import").contentType("application/json").content("[]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldRejectConflictsThatSlippedPastPrefilterInWriter() {
+        Instant now = Instant.now();
+        VoteBatchWriter.Result result = batchWriter.write(List.of(
+                new PendingVote(ideaA, "import-w1", "s", now),
+                new PendingVote(ideaB, "import-w1", "s", now),
+                new PendingVote(pending, "import-w2", "s", now)));
+
+        assertEquals(1, result.accepted());
+        assertNull(result.rejections()[0]);
+        assertEquals(VoteBatchWriter.Rejection.ALREADY_VOTED, result.rejections()[1]);
+        assertEquals(VoteBatchWriter.Rejection.IDEA_UNAVAILABLE, result.rejections()[2]);
+        // A nem jóváhagyott ötletre szánt szavazat guard sora sem marad meg
+        assertFalse(voteGuardRepository.existsById("import-w2"));
+        assertEquals(1, votes(ideaA));
+    }
+
+    private Long approvedIdea(String title) {
+        Idea idea = new Idea(title, "Desc");
+        idea.setApproved(true);
+        return ideaRepository.save(idea).getId();
+    }
+
+    private int votes(Long ideaId) {
+        return jdbcTemplate.queryForObject("SELECT votes FROM ideas WHERE id = ?", Integer.class, ideaId);
+    }
+
+    private static String row(Long ideaId, String username) {
+        return "{\"ideaId\": " + ideaId + ", \"username\": \"" + username + "\"}";
+    }
+}
@@ -0,0 +1,148 @@
+package com.gabor.upvote.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteGuardRepository;
+import com.gabor.upvote.repository.VoteRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"upvote.votes.mode=async", "upvote.votes.journal.directory=target/test-vote-journal"})
+@AutoConfigureMockMvc
+class VotePipelineIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Autowired
+    private VoteRecordRepository voteRecordRepository;
+
+    @Autowired
+    private VoteGuardRepository voteGuardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long approved;
+
+    @BeforeEach
+    void setUp() {
+        Idea idea = new Idea("Async idea", "Desc");
+        idea.setApproved(true);
+        approved = ideaRepository.save(idea).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Nem tranzakciós teszt (a fogyasztó külön szálon commitol), kézzel takarítunk
+        voteGuardRepository.deleteAll();
+        voteRecordRepository.deleteAll();
+        ideaRepository.deleteAll();
+    }
+
+    @Test
+    void shouldAcceptVoteWithTicketAndCommitInBackground() throws Exception {
+        String ticket = vote(approved, "async-u1");
+
+        JsonNode status = awaitResult(ticket, "async-u1");
+        assertEquals("ACCEPTED", status.get("status").asText());
+        assertEquals(approved.longValue(), status.get("ideaId").asLong());
+        assertEquals(1, votesOf(approved));
+        assertEquals(1, voteRecordRepository.countByIdeaId(approved));
+    }
+
+    @Test
+    void shouldReportDuplicateVoteThroughTicket() throws Exception {
+        awaitResult(vote(approved, "async-u2"), "async-u2");
+
+        JsonNode status = awaitResult(vote(approved, "async-u2"), "async-u2");
+        assertEquals("REJECTED", status.get("status").asText());
+        assertEquals("ALREADY_VOTED", status.get("reason").asText());
+        assertEquals(1, votesOf(approved));
+    }
+
+    @Test
+    void shouldFailUnwritableVoteWithoutBlockingTheQueue() throws Exception {
+        // Hosszabb a username oszlopnál: adathiba, újrapróbálással sem kerülne be
+        String poison = "p".repeat(150);
+        String failed = vote(approved, poison);
+        String accepted = vote(approved, "async-u6");
+
+        assertEquals("FAILED", awaitResult(failed, poison).get("status").asText());
+        assertEquals("ACCEPTED", awaitResult(accepted, "async-u6").get("status").asText());
+        assertEquals("ACCEPTED", awaitResult(vote(approved, "async-u7"), "async-u7").get("status").asText());
+        assertEquals(2, votesOf(approved));
+    }
+
+    @Test
+    void shouldRejectUnknownAndUnapprovedIdeaSynchronously() throws Exception {
+        Long pending = ideaRepository.save(new Idea("Pending", "Desc")).getId();
+
+        mockMvc.perform(post("/api/ideas/" + pending + "/vote").with(voter("async-u3")))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/ideas/999999/vote").with(voter("async-u3")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldHideTicketFromOtherUsers() throws Exception {
+        String ticket = vote(approved, "async-u4");
+
+        mockMvc.perform(get("/api/ideas/votes/" + ticket).with(voter("async-u5")))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/ideas/votes/unknown").with(voter("async-u4")))
+                .andExpect(status().isNotFound());
+    }
+
+    private String vote(Long ideaId, String username) throws Exception {
+        String body = mockMvc.perform(post("/api/ideas/" + ideaId + "/vote").with(voter(username)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("ticket").asText();
+    }
+
+    private JsonNode awaitResult(String ticket, String username) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            String body = mockMvc.perform(get("/api/ideas/votes/" + ticket).with(voter(username)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode status = objectMapper.readTree(body);
+            if (!"QUEUED".equals(status.get("status").asText())) {
+                return status;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "Vote ticket still queued: " + ticket);
+            Thread.sleep(20);
+        }
+    }
+
+    private int votesOf(Long ideaId) {
+        return jdbcTemplate.queryForObject("SELECT votes FROM ideas WHERE id = ?", Integer.class, ideaId);
+    }
+
+    private static RequestPostProcessor voter(String username) {
+        return user(username).roles("USER");
+    }
+}
@@ -0,0 +1,97 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.model.User;
+import com.gabor.upvote.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private CustomUserDetailsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CustomUserDetailsService(userRepository, new UpvoteProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice")));
+
+        service.loadUserByUsername("alice");
+        UserDetails details = service.loadUserByUsername("alice");
+
+        assertEquals("alice", details.getUsername());
+        assertTrue(details.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+        verify(userRepository, times(1)).findByUsername("alice");
+        assertEquals(1, service.cacheStats().hitCount());
+        assertEquals(1, service.cacheStats().missCount());
+    }
+
+    @Test
+    void shouldHandOutIndependentCopies() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice")));
+
+        // A ProviderManager hitelesítés után törli a jelszót az átadott példányból
+        ((CredentialsContainer) service.loadUserByUsername("alice")).eraseCredentials();
+
+        assertEquals("{hash}", service.loadUserByUsername("alice").getPassword());
+    }
+
+    @Test
+    void shouldReloadAfterUserChanged() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice")));
+
+        service.loadUserByUsername("alice");
+        service.onUserChanged(new UserChangedEvent("alice"));
+        service.loadUserByUsername("alice");
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void shouldNotKeepSnapshotLoadedDuringChange() {
+        when(userRepository.findByUsername("alice")).thenAnswer(invocation -> {
+            // A jelszócsere a betöltés közben commitol, a betöltő még a régi sort olvasta
+            service.onUserChanged(new UserChangedEvent("alice"));
+            return Optional.of(user("alice"));
+        }).thenReturn(Optional.of(user("alice")));
+
+        service.loadUserByUsername("alice");
+        service.loadUserByUsername("alice");
+        service.loadUserByUsername("alice");
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void shouldNotCacheMissingUsers() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost"));
+
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+
+    private static User user(String username) {
+        return new User(username, "{hash}", username + "@example.com");
+    }
+}
@@ -0,0 +1,92 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.IdeaChanges;
+import com.gabor.upvote.model.Idea;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdeaChangeLogTest {
+
+    private final IdeaChangeLog changeLog = new IdeaChangeLog();
+
+    @Test
+    void shouldReturnOnlyIdeasChangedSinceVersion() {
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.APPROVED, idea(1L, 0)));
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.APPROVED, idea(2L, 0)));
+        long since = changeLog.version();
+
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(2L, 1)));
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(2L, 2)));
+
+        IdeaChanges changes = changeLog.since(since);
+
+        assertFalse(changes.isReset());
+        assertEquals(1, changes.getChanged().size());
+        assertEquals(2, changes.getChanged().get(0).getVotes());
+        assertEquals(changeLog.version(), changes.getVersion());
+        assertTrue(changeLog.since(changes.getVersion()).getChanged().isEmpty());
+        // Ötletenként csak a legutolsó változás marad meg
+        assertEquals(2, changeLog.size());
+    }
+
+    @Test
+    void shouldReturnTombstoneForRejectedIdea() {
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.APPROVED, idea(1L, 3)));
+        long since = changeLog.version();
+
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.REJECTED, idea(1L, 0)));
+
+        IdeaChanges changes = changeLog.since(since);
+        assertEquals(List.of(1L), changes.getRemoved());
+        assertTrue(changes.getChanged().isEmpty());
+    }
+
+    @Test
+    void shouldBumpVersionWithoutExposingSubmittedIdeas() {
+        long before = changeLog.version();
+
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.SUBMITTED, idea(5L, 0)));
+
+        assertTrue(changeLog.version() > before);
+        assertTrue(changeLog.since(before).getChanged().isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreOutOfOrderVoteEvent() {
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(1L, 7)));
+        long since = changeLog.version();
+
+        changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(1L, 6)));
+
+        assertEquals(since, changeLog.version());
+        assertEquals(7, changeLog.since(since - 1).getChanged().get(0).getVotes());
+    }
+
+    @Test
+    void shouldAskForResetWhenVersionIsUnknown() {
+        assertTrue(changeLog.since(0).isReset());
+        assertTrue(changeLog.since(changeLog.version() + 1).isReset());
+        assertFalse(changeLog.since(changeLog.version()).isReset());
+    }
+
+    @Test
+    void shouldAskForResetAfterTombstonesWerePruned() {
+        long since = changeLog.version();
+        for (long id = 1; id <= IdeaChangeLog.MAX_TOMBSTONES + 1; id++) {
+            changeLog.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.REJECTED, idea(id, 0)));
+        }
+
+        assertTrue(changeLog.since(since).isReset());
+    }
+
+    private static Idea idea(Long id, int votes) {
+        Idea idea = new Idea("Idea " + id, "Desc");
+        idea.setId(id);
+        idea.setApproved(true);
+        idea.setVotes(votes);
+        return idea;
+    }
+}
@@ -0,0 +1,101 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdeaLeaderboardTest {
+
+    @Mock
+    private IdeaRepository ideaRepository;
+
+    private IdeaLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        UpvoteProperties properties = new UpvoteProperties();
+        properties.getLeaderboard().setEnabled(true);
+        leaderboard = new IdeaLeaderboard(ideaRepository, properties);
+
+        when(ideaRepository.findApprovedSummaries()).thenReturn(List.of(
+                IdeaSummary.of(idea(1L, "A", 5, 100)),
+                IdeaSummary.of(idea(2L, "B", 3, 200)),
+                IdeaSummary.of(idea(3L, "C", 3, 100))));
+        leaderboard.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void shouldServeRebuiltOrdering() {
+        assertTrue(leaderboard.isActive());
+        assertEquals(List.of("A", "B", "C"), titles());
+    }
+
+    @Test
+    void shouldRepositionVotedIdea() {
+        leaderboard.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(3L, "C", 6, 100)));
+
+        assertEquals(List.of("C", "A", "B"), titles());
+        assertEquals(3, leaderboard.size());
+    }
+
+    @Test
+    void shouldIgnoreOutOfOrderVoteEvent() {
+        leaderboard.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(2L, "B", 7, 200)));
+        leaderboard.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(2L, "B", 6, 200)));
+
+        assertEquals(7, leaderboard.snapshot().get(0).getVotes());
+    }
+
+    @Test
+    void shouldAddApprovedAndRemoveRejectedIdeas() {
+        leaderboard.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.APPROVED, idea(4L, "D", 0, 300)));
+        Idea rejected = new Idea();
+        rejected.setId(1L);
+        leaderboard.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.REJECTED, rejected));
+
+        assertEquals(List.of("B", "C", "D"), titles());
+    }
+
+    @Test
+    void shouldIgnoreVotesForUnknownIdeas() {
+        leaderboard.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(99L, "X", 10, 100)));
+
+        assertEquals(3, leaderboard.size());
+    }
+
+    @Test
+    void shouldPageAfterCursor() {
+        IdeaCursor afterA = IdeaCursor.after(leaderboard.snapshot().get(0));
+
+        List<IdeaSummary> page = leaderboard.page(afterA, 1);
+
+        assertEquals(1, page.size());
+        assertEquals("B", page.get(0).getTitle());
+    }
+
+    private List<String> titles() {
+        return leaderboard.snapshot().stream().map(IdeaSummary::getTitle).toList();
+    }
+
+    private static Idea idea(Long id, String title, int votes, long createdAt) {
+        Idea idea = new Idea(title, "Desc");
+        idea.setId(id);
+        idea.setApproved(true);
+        idea.setVotes(votes);
+        idea.setCreatedAt(Instant.ofEpochSecond(createdAt));
+        return idea;
+    }
+}
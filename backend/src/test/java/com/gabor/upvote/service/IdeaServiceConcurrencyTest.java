@@ -0,0 +1,123 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteGuardRepository;
+import com.gabor.upvote.repository.VoteRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "upvote.votes.mode=atomic")
+class IdeaServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private IdeaService ideaService;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Autowired
+    private VoteRecordRepository voteRecordRepository;
+
+    @Autowired
+    private VoteGuardRepository voteGuardRepository;
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        // Nem tranzakciós teszt, kézzel takarítunk
+        voteGuardRepository.deleteAll();
+        voteRecordRepository.deleteAll();
+        ideaRepository.deleteAll();
+    }
+
+    @Test
+    void shouldNotLoseIncrementsUnderConcurrentVotes() throws Exception {
+        Idea idea = approvedIdea();
+        int voters = 200;
+
+        List<Future<Boolean>> results = runConcurrently(voters, i -> () -> {
+            ideaService.vote(idea.getId(), "voter" + i, "session" + i);
+            return true;
+        });
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+
+        assertEquals(voters, ideaRepository.findById(idea.getId()).orElseThrow().getVotes());
+        assertEquals(voters, voteRecordRepository.countByIdeaId(idea.getId()));
+        assertEquals(voters, ideaService.votesForIdea(idea.getId()));
+    }
+
+    @Test
+    void shouldAcceptOnlyOneVotePerUserUnderConcurrency() throws Exception {
+        Idea first = approvedIdea();
+        Idea second = approvedIdea();
+
+        // Ugyanaz a user párhuzamosan, felváltva két különböző ötletre
+        List<Future<Boolean>> results = runConcurrently(THREADS * 4, i -> () -> {
+            try {
+                ideaService.vote(i % 2 == 0 ? first.getId() : second.getId(), "same-user", "session" + i);
+                return true;
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        });
+        long accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                accepted++;
+            }
+        }
+
+        assertEquals(1, accepted);
+        int totalVotes = ideaRepository.findById(first.getId()).orElseThrow().getVotes()
+                + ideaRepository.findById(second.getId()).orElseThrow().getVotes();
+        assertEquals(1, totalVotes);
+        assertEquals(1, voteRecordRepository.count());
+    }
+
+    private Idea approvedIdea() {
+        Idea idea = new Idea("Concurrent", "Desc");
+        idea.setApproved(true);
+        return ideaRepository.save(idea);
+    }
+
+    private <T> List<Future<T>> runConcurrently(int tasks, IntFunction<Callable<T>> task)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            Callable<T> body = task.apply(i);
+            futures.add(pool.submit(() -> {
+                start.await();
+                return body.call();
+            }));
+        }
+        start.countDown();
+        return futures;
+    }
+}
@@ -1,22 +1,36 @@
 package com.gabor.upvote.service;
 
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import com.gabor.upvote.dto.IdeaBatchResult;
+import com.gabor.upvote.dto.IdeaSummary;
 import com.gabor.upvote.model.Idea;
 import com.gabor.upvote.model.VoteRecord;
+import com.gabor.upvote.model.VoteGuard;
 import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteGuardRepository;
 import com.gabor.upvote.repository.VoteRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +42,41 @@ class IdeaServiceTest {
     @Mock
     private VoteRecordRepository voteRecordRepository;
 
+    @Mock
+    private VoteGuardRepository voteGuardRepository;
+
+    @Mock
+    private VoteCounterBuffer voteCounterBuffer;
+
+    @Mock
+    private VoteSlotCounter voteSlotCounter;
+
+    @Mock
+    private IdeaLeaderboard leaderboard;
+
+    @Mock
+    private IdeaTrending trending;
+
+    @Mock
+    private VoteRollups rollups;
+
+    @Mock
+    private VoteRecordPartitions partitions;
+
+    @Mock
+    private IdeaChangeLog changeLog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private UpvoteProperties properties = new UpvoteProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ServiceMetrics metrics = new ServiceMetrics(meterRegistry);
+
     @InjectMocks
     private IdeaService ideaService;
 
@@ -53,36 +102,64 @@ class IdeaServiceTest {
 
     @Test
     void shouldListApprovedIdeas() {
-        Idea approved1 = new Idea("Approved 1", "Desc");
-        approved1.setApproved(true);
-        Idea approved2 = new Idea("Approved 2", "Desc");
-        approved2.setApproved(true);
+        IdeaSummary approved1 = new IdeaSummary(1L, "Approved 1", 3, Instant.now());
+        IdeaSummary approved2 = new IdeaSummary(2L, "Approved 2", 1, Instant.now());
 
-        when(ideaRepository.findByApprovedTrueOrderByVotesDescCreatedAtDesc())
-                .thenReturn(List.of(approved1, approved2));
+        when(ideaRepository.findApprovedSummaries()).thenReturn(List.of(approved1, approved2));
 
-        List<Idea> result = ideaService.listApprovedIdeas();
+        List<IdeaSummary> result = ideaService.listApprovedIdeas();
 
         assertEquals(2, result.size());
-        assertTrue(result.get(0).isApproved());
-        verify(ideaRepository, times(1)).findByApprovedTrueOrderByVotesDescCreatedAtDesc();
+        assertEquals("Approved 1", result.get(0).getTitle());
+        verify(ideaRepository, times(1)).findApprovedSummaries();
+    }
+
+    @Test
+    void shouldListApprovedIdeasFromLeaderboardWhenActive() {
+        IdeaSummary approved = new IdeaSummary(1L, "Approved", 0, Instant.now());
+        when(leaderboard.isActive()).thenReturn(true);
+        when(leaderboard.snapshot()).thenReturn(List.of(approved));
+
+        List<IdeaSummary> result = ideaService.listApprovedIdeas();
+
+        assertEquals(List.of(approved), result);
+        verify(ideaRepository, never()).findApprovedSummaries();
+    }
+
+    @Test
+    void shouldDeriveListingETagFromBoardVersionWhenEnabled() {
+        assertNull(ideaService.listingETag());
+
+        properties.getListing().setEtag(true);
+        when(changeLog.version()).thenReturn(10L, 11L);
+        String before = ideaService.listingETag();
+        String after = ideaService.listingETag();
+
+        assertTrue(before.startsWith("\"") && before.endsWith("\""));
+        assertNotEquals(before, after);
     }
 
     @Test
     void shouldListPendingIdeas() {
-        Idea pending1 = new Idea("Pending 1", "Desc");
-        pending1.setApproved(false);
-        Idea pending2 = new Idea("Pending 2", "Desc");
-        pending2.setApproved(false);
+        IdeaSummary pending1 = new IdeaSummary(1L, "Pending 1", 0, Instant.now());
+        IdeaSummary pending2 = new IdeaSummary(2L, "Pending 2", 0, Instant.now());
 
-        when(ideaRepository.findByApprovedFalseOrderByCreatedAtDesc())
-                .thenReturn(List.of(pending1, pending2));
+        when(ideaRepository.findPendingSummaries()).thenReturn(List.of(pending1, pending2));
 
-        List<Idea> result = ideaService.listPendingIdeas();
+        List<IdeaSummary> result = ideaService.listPendingIdeas();
 
         assertEquals(2, result.size());
-        assertFalse(result.get(0).isApproved());
-        verify(ideaRepository, times(1)).findByApprovedFalseOrderByCreatedAtDesc();
+        verify(ideaRepository, times(1)).findPendingSummaries();
+    }
+
+    @Test
+    void shouldHidePendingIdeaDetailsFromVoters() {
+        Idea pending = new Idea("Pending", "Long description");
+        pending.setId(1L);
+        when(ideaRepository.findById(1L)).thenReturn(Optional.of(pending));
+
+        assertThrows(NoSuchElementException.class, () -> ideaService.getIdea(1L, false));
+        assertEquals("Long description", ideaService.getIdea(1L, true).getDescription());
     }
 
     @Test
@@ -116,6 +193,36 @@ class IdeaServiceTest {
         verify(ideaRepository, times(1)).deleteById(1L);
     }
 
+    @Test
+    void shouldApproveBatchInChunksWithSingleEvent() {
+        List<Long> ids = LongStream.rangeClosed(1, IdeaService.MODERATION_CHUNK_SIZE + 1).boxed().toList();
+        when(ideaRepository.findPendingIdsIn(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .filter(id -> id != 2L)
+                        .toList());
+        when(ideaRepository.findSummariesByIdIn(any()))
+                .thenReturn(List.of(new IdeaSummary(1L, "Approved", 0, Instant.now())));
+
+        IdeaBatchResult result = ideaService.approveIdeas(ids);
+
+        assertEquals(IdeaService.MODERATION_CHUNK_SIZE, result.getProcessed().size());
+        assertEquals(List.of(2L), result.getSkipped());
+        verify(ideaRepository, times(2)).approveAllByIdIn(anyCollection());
+        verify(eventPublisher, times(1)).publishEvent(any(IdeaChangedEvent.class));
+    }
+
+    @Test
+    void shouldRejectBatchAndSkipUnknownIdeas() {
+        when(ideaRepository.findExistingIdsIn(anyCollection())).thenReturn(List.of(1L, 3L));
+
+        IdeaBatchResult result = ideaService.rejectIdeas(List.of(1L, 2L, 3L, 3L));
+
+        assertEquals(List.of(1L, 3L), result.getProcessed());
+        assertEquals(List.of(2L), result.getSkipped());
+        verify(ideaRepository).deleteAllByIdIn(List.of(1L, 3L));
+        verify(eventPublisher, times(1)).publishEvent(any(IdeaChangedEvent.class));
+    }
+
     @Test
     void shouldVoteForIdea() {
         String sessionId = "test-session";
@@ -125,6 +232,7 @@ class IdeaServiceTest {
 
         when(voteRecordRepository.existsByUsername(username)).thenReturn(false);  // ⬅️ VÁLTOZÁS
         when(ideaRepository.findById(1L)).thenReturn(Optional.of(testIdea));
+        when(voteGuardRepository.claim(eq(username), eq(1L), any())).thenReturn(1);
         when(voteRecordRepository.save(any(VoteRecord.class))).thenReturn(new VoteRecord());
         when(ideaRepository.save(any(Idea.class))).thenReturn(testIdea);
 
@@ -132,8 +240,46 @@ class IdeaServiceTest {
 
         assertEquals(1, result.getVotes());
         verify(voteRecordRepository, times(1)).existsByUsername(username);  // ⬅️ VÁLTOZÁS
+        verify(eventPublisher, times(1)).publishEvent(any(IdeaChangedEvent.class));
         verify(voteRecordRepository, times(1)).save(any(VoteRecord.class));
         verify(ideaRepository, times(1)).save(testIdea);
+        assertEquals(1.0, voteOutcomeCount("accepted"));
+    }
+
+    @Test
+    void shouldSkipVoteRecordLookupWhenPartitioned() {
+        properties.getVotes().getPartitioning().setEnabled(true);
+        testIdea.setApproved(true);
+
+        when(ideaRepository.findById(1L)).thenReturn(Optional.of(testIdea));
+        when(voteGuardRepository.claim(eq("testuser"), eq(1L), any())).thenReturn(1);
+        when(ideaRepository.save(any(Idea.class))).thenReturn(testIdea);
+
+        ideaService.vote(1L, "testuser", "test-session");
+
+        verify(voteRecordRepository, never()).existsByUsername(any());
+        verify(voteRecordRepository, times(1)).save(any(VoteRecord.class));
+    }
+
+    @Test
+    void shouldBufferVoteInWriteBehindMode() {
+        properties.getVotes().setMode(VoteMode.WRITE_BEHIND);
+        testIdea.setApproved(true);
+        testIdea.setVotes(10);
+
+        when(voteRecordRepository.existsByUsername("testuser")).thenReturn(false);
+        when(ideaRepository.findById(1L)).thenReturn(Optional.of(testIdea));
+        when(voteGuardRepository.claim(eq("testuser"), eq(1L), any())).thenReturn(1);
+        when(voteCounterBuffer.pending(1L)).thenReturn(4L);
+
+        Idea result = ideaService.vote(1L, "testuser", "test-session");
+
+        // 10 kiírt + 4 pufferelt + az aktuális szavazat
+        assertEquals(15, result.getVotes());
+        assertEquals(10, testIdea.getVotes());
+        verify(voteRecordRepository, times(1)).save(any(VoteRecord.class));
+        verify(voteCounterBuffer, times(1)).increment(1L);
+        verify(ideaRepository, never()).save(any(Idea.class));
     }
 
     @Test
@@ -147,6 +293,8 @@ class IdeaServiceTest {
 
         assertThrows(IllegalStateException.class, () -> ideaService.vote(1L, username, sessionId));  // ⬅️ VÁLTOZÁS
         verify(ideaRepository, never()).save(any(Idea.class));
+        assertEquals(1.0, voteOutcomeCount("duplicate"));
+        assertEquals(0.0, voteOutcomeCount("accepted"));
     }
 
     @Test
@@ -158,15 +306,78 @@ class IdeaServiceTest {
         when(ideaRepository.findById(999L)).thenReturn(Optional.empty());
 
         assertThrows(NoSuchElementException.class, () -> ideaService.vote(999L, username, sessionId));  // ⬅️ VÁLTOZÁS
+        assertEquals(1.0, voteOutcomeCount("not_found"));
+    }
+
+    @Test
+    void shouldVoteAtomicallyWithoutReadingFirst() {
+        properties.getVotes().setMode(VoteMode.ATOMIC);
+        testIdea.setApproved(true);
+        testIdea.setVotes(1);
+
+        when(voteGuardRepository.claim(eq("testuser"), eq(1L), any())).thenReturn(1);
+        when(ideaRepository.incrementVotesIfApproved(1L)).thenReturn(1);
+        when(ideaRepository.findById(1L)).thenReturn(Optional.of(testIdea));
+
+        Idea result = ideaService.vote(1L, "testuser", "test-session");
+
+        assertEquals(1, result.getVotes());
+        verify(voteRecordRepository, times(1)).insertIfAbsent(eq(1L), eq("testuser"), eq("test-session"), any());
+        verify(voteRecordRepository, never()).existsByUsername(any());
+        verify(ideaRepository, never()).save(any(Idea.class));
+    }
+
+    @Test
+    void shouldReportVotedIdeaWhenAtomicClaimConflicts() {
+        properties.getVotes().setMode(VoteMode.ATOMIC);
+        Idea votedIdea = new Idea("Korábbi ötlet", "Desc");
+
+        when(voteGuardRepository.claim(eq("testuser"), eq(1L), any())).thenReturn(0);
+        when(voteGuardRepository.findById("testuser")).thenReturn(Optional.of(new VoteGuard("testuser", 2L)));
+        when(ideaRepository.findById(2L)).thenReturn(Optional.of(votedIdea));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ideaService.vote(1L, "testuser", "test-session"));
+
+        assertTrue(e.getMessage().contains("Korábbi ötlet"));
+        verify(ideaRepository, never()).incrementVotesIfApproved(any());
+        verify(voteRecordRepository, never()).insertIfAbsent(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectAtomicVoteForUnapprovedIdea() {
+        properties.getVotes().setMode(VoteMode.ATOMIC);
+
+        when(voteGuardRepository.claim(eq("testuser"), eq(1L), any())).thenReturn(1);
+        when(ideaRepository.incrementVotesIfApproved(1L)).thenReturn(0);
+        when(ideaRepository.findById(1L)).thenReturn(Optional.of(testIdea));
+
+        assertThrows(IllegalStateException.class, () -> ideaService.vote(1L, "testuser", "test-session"));
+        verify(voteRecordRepository, never()).insertIfAbsent(any(), any(), any(), any());
+        assertEquals(1.0, voteOutcomeCount("unapproved"));
     }
 
     @Test
     void shouldCountVotesForIdea() {
-        when(voteRecordRepository.countByIdeaId(1L)).thenReturn(5L);
+        when(voteRecordRepository.countIncludingArchived(1L)).thenReturn(5L);
 
         long count = ideaService.votesForIdea(1L);
 
         assertEquals(5L, count);
-        verify(voteRecordRepository, times(1)).countByIdeaId(1L);
+        verify(voteRecordRepository, times(1)).countIncludingArchived(1L);
+    }
+
+    @Test
+    void shouldBoundVoteCountToAttachedPartitions() {
+        Instant since = Instant.parse("2026-06-01T00:00:00Z");
+        when(partitions.attachedFrom()).thenReturn(Optional.of(since));
+        when(voteRecordRepository.countIncludingArchivedSince(1L, since)).thenReturn(7L);
+
+        assertEquals(7L, ideaService.votesForIdea(1L));
+        verify(voteRecordRepository, never()).countIncludingArchived(anyLong());
+    }
+
+    private double voteOutcomeCount(String outcome) {
+        return meterRegistry.get("upvote.votes").tag("outcome", outcome).counter().count();
     }
 }
\ No newline at end of file
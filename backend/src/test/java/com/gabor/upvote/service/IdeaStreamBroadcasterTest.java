@@ -0,0 +1,169 @@
+package com.gabor.upvote.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.model.Idea;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdeaStreamBroadcasterTest {
+
+    private IdeaStreamBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        UpvoteProperties properties = new UpvoteProperties();
+        properties.getStream().setHeartbeat(Duration.ofHours(1));
+        broadcaster = new IdeaStreamBroadcaster(new ObjectMapper(), properties);
+    }
+
+    @Test
+    void shouldCoalesceVotesOfHotIdeaIntoOneUpdatePerTick() {
+        RecordingEmitter emitter = subscribe();
+
+        for (int votes = 1; votes <= 50; votes++) {
+            broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(1L, votes)));
+        }
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(2L, 3)));
+
+        assertEquals(2, broadcaster.tick());
+        assertEquals(1, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("{\"id\":1,\"votes\":50,\"approved\":true}"));
+        assertTrue(emitter.events.get(0).contains("{\"id\":2,\"votes\":3,\"approved\":true}"));
+
+        // A következő tick-ben már nincs mit küldeni
+        assertEquals(0, broadcaster.tick());
+        assertEquals(1, emitter.events.size());
+    }
+
+    @Test
+    void shouldKeepHighestVoteCountWhenEventsArriveOutOfOrder() {
+        RecordingEmitter emitter = subscribe();
+
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(1L, 7)));
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(1L, 6)));
+        broadcaster.tick();
+
+        assertTrue(emitter.events.get(0).contains("\"votes\":7"));
+    }
+
+    @Test
+    void shouldSendRemovalForRejectedIdea() {
+        RecordingEmitter emitter = subscribe();
+        Idea rejected = new Idea();
+        rejected.setId(3L);
+
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(3L, 2)));
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.REJECTED, rejected));
+        broadcaster.tick();
+
+        assertTrue(emitter.events.get(0).contains("[{\"id\":3,\"removed\":true}]"));
+    }
+
+    @Test
+    void shouldDropSubscriberWhoseConnectionFailed() {
+        RecordingEmitter healthy = subscribe();
+        RecordingEmitter broken = subscribe();
+        broken.failing = true;
+
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.APPROVED, idea(1L, 0)));
+        broadcaster.tick();
+
+        assertEquals(1, healthy.events.size());
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void shouldDropStalledSubscriberWithoutDelayingOthers() throws Exception {
+        UpvoteProperties properties = new UpvoteProperties();
+        properties.getStream().setTick(Duration.ofHours(1));
+        properties.getStream().setSendQueue(2);
+        broadcaster = new IdeaStreamBroadcaster(new ObjectMapper(), properties);
+        broadcaster.start();
+        CountDownLatch unblock = new CountDownLatch(1);
+        try {
+            RecordingEmitter healthy = subscribe();
+            RecordingEmitter stalled = subscribe();
+            // Tele TCP küldőpuffer: az írás nem tér vissza
+            stalled.blockOn = unblock;
+
+            for (int votes = 1; votes <= 5; votes++) {
+                broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(1L, votes)));
+                broadcaster.tick();
+                awaitEvents(healthy, votes);
+            }
+
+            assertEquals(5, healthy.events.size());
+            assertEquals(1, broadcaster.subscriberCount());
+        } finally {
+            unblock.countDown();
+            broadcaster.stop();
+        }
+    }
+
+    @Test
+    void shouldIgnoreSubmittedIdeasAndEventsWithoutSubscribers() {
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.VOTED, idea(1L, 1)));
+        RecordingEmitter emitter = subscribe();
+        broadcaster.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.SUBMITTED, idea(2L, 0)));
+
+        assertEquals(0, broadcaster.tick());
+        assertTrue(emitter.events.isEmpty());
+    }
+
+    private static void awaitEvents(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (emitter.events.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private RecordingEmitter subscribe() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.register(emitter);
+        return emitter;
+    }
+
+    private static Idea idea(Long id, int votes) {
+        Idea idea = new Idea("Idea " + id, "Desc");
+        idea.setId(id);
+        idea.setApproved(true);
+        idea.setVotes(votes);
+        return idea;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+        private volatile CountDownLatch blockOn;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            if (blockOn != null) {
+                try {
+                    blockOn.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Write timed out");
+            }
+            events.add(builder.build().stream()
+                    .map(part -> part.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.dto.IdeaSummary;
+import com.gabor.upvote.dto.TrendingIdea;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdeaTrendingTest {
+
+    @Mock
+    private IdeaRepository ideaRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final Instant now = Instant.now();
+    private IdeaTrending trending;
+
+    @BeforeEach
+    void setUp() {
+        UpvoteProperties properties = new UpvoteProperties();
+        properties.getTrending().setHalfLife(Duration.ofHours(6));
+        // Régi epoch: a log pontszámok nagyok, a lecsengetett érték mégis pontos marad
+        trending = new IdeaTrending(ideaRepository, jdbcTemplate, properties, now.minus(Duration.ofDays(365)));
+    }
+
+    @Test
+    void shouldRankRecentVotesAboveOldPopularity() {
+        for (int i = 1; i <= 10; i++) {
+            cast(1L, "Old favourite", i, now.minus(Duration.ofDays(2)));
+        }
+        cast(2L, "Fresh", 1, now.minusSeconds(60));
+        cast(2L, "Fresh", 2, now);
+
+        List<TrendingIdea> top = trending.top(10);
+
+        assertEquals(List.of("Fresh", "Old favourite"), top.stream().map(TrendingIdea::getTitle).toList());
+        assertEquals(2, top.get(0).getVotes());
+        // 10 szavazat 8 felezési idővel korábban: 10 / 256
+        assertEquals(10 / 256.0, top.get(1).getScore(), 1e-3);
+    }
+
+    @Test
+    void shouldHalveScoreAfterOneHalfLife() {
+        cast(1L, "A", 1, now.minus(Duration.ofHours(6)));
+        cast(2L, "B", 1, now);
+
+        List<TrendingIdea> top = trending.top(10);
+
+        assertEquals(1.0, top.get(0).getScore(), 1e-3);
+        assertEquals(0.5, top.get(1).getScore(), 1e-3);
+    }
+
+    @Test
+    void shouldKeepLatestVoteCountWhenEventsArriveOutOfOrder() {
+        cast(1L, "A", 7, now);
+        cast(1L, "A", 6, now);
+
+        assertEquals(7, trending.top(1).get(0).getVotes());
+        assertEquals(1, trending.size());
+    }
+
+    @Test
+    void shouldDropRejectedIdea() {
+        cast(1L, "A", 1, now);
+        cast(2L, "B", 1, now);
+        Idea removed = new Idea();
+        removed.setId(1L);
+
+        trending.onIdeaChanged(IdeaChangedEvent.of(IdeaChangedEvent.Type.REJECTED, removed));
+
+        assertEquals(List.of("B"), trending.top(10).stream().map(TrendingIdea::getTitle).toList());
+    }
+
+    @Test
+    void shouldAddLogScoresWithoutOverflow() {
+        assertEquals(1000 + Math.log(2), IdeaTrending.logAddExp(1000, 1000), 1e-9);
+        assertEquals(5000, IdeaTrending.logAddExp(5000, -5000), 1e-9);
+    }
+
+    private void cast(Long id, String title, int votes, Instant votedAt) {
+        IdeaSummary idea = new IdeaSummary(id, title, votes, Instant.EPOCH);
+        trending.onVotesCast(VotesCastEvent.of(idea, votedAt));
+    }
+}
@@ -0,0 +1,140 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import com.gabor.upvote.repository.IdeaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VoteCounterBufferTest {
+
+    @Mock
+    private IdeaRepository ideaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private UpvoteProperties properties;
+    private VoteCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new UpvoteProperties();
+        properties.getVotes().setMode(VoteMode.WRITE_BEHIND);
+        properties.getVotes().getWriteBehind().setFlushThreshold(Long.MAX_VALUE);
+        properties.getVotes().getWriteBehind().setSpillFile(tempDir.resolve("counters.spill"));
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        buffer = new VoteCounterBuffer(ideaRepository, transactionManager, properties);
+    }
+
+    @Test
+    void shouldFlushAggregatedDeltaPerIdea() {
+        for (int i = 0; i < 5; i++) {
+            buffer.increment(1L);
+        }
+        buffer.increment(2L);
+
+        assertEquals(5, buffer.pending(1L));
+        assertEquals(6, buffer.flush());
+
+        verify(ideaRepository, times(1)).incrementVotes(1L, 5);
+        verify(ideaRepository, times(1)).incrementVotes(2L, 1);
+        assertEquals(0, buffer.pending(1L));
+        assertEquals(0, buffer.flush());
+    }
+
+    @Test
+    void shouldKeepDeltasWhenFlushFails() {
+        buffer.increment(1L);
+        buffer.increment(1L);
+        when(ideaRepository.incrementVotes(1L, 2)).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> buffer.flush());
+
+        // A következő flush újra próbálkozik ugyanazzal a deltával
+        assertEquals(2, buffer.pending(1L));
+        reset(ideaRepository);
+        assertEquals(2, buffer.flush());
+        verify(ideaRepository).incrementVotes(1L, 2);
+    }
+
+    @Test
+    void shouldNotLoseIncrementsDuringConcurrentFlushes() throws Exception {
+        AtomicLong flushed = new AtomicLong();
+        when(ideaRepository.incrementVotes(eq(1L), anyInt())).thenAnswer(invocation -> {
+            flushed.addAndGet(invocation.<Integer>getArgument(1));
+            return 1;
+        });
+
+        int threads = 8;
+        int votesPerThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        List<Future<?>> voters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            voters.add(pool.submit(() -> {
+                for (int i = 0; i < votesPerThread; i++) {
+                    buffer.increment(1L);
+                }
+            }));
+        }
+        Future<?> flusher = pool.submit(() -> {
+            while (voters.stream().anyMatch(f -> !f.isDone())) {
+                buffer.flush();
+            }
+        });
+        for (Future<?> voter : voters) {
+            voter.get();
+        }
+        flusher.get();
+        buffer.flush();
+        pool.shutdown();
+
+        assertEquals((long) threads * votesPerThread, flushed.get());
+    }
+
+    @Test
+    void shouldSpillOnShutdownAndRestoreOnStart() throws Exception {
+        buffer.start();
+        buffer.increment(7L);
+        buffer.increment(7L);
+        when(ideaRepository.incrementVotes(7L, 2)).thenThrow(new IllegalStateException("db down"));
+
+        buffer.stop();
+        assertTrue(Files.exists(tempDir.resolve("counters.spill")));
+
+        reset(ideaRepository);
+        VoteCounterBuffer restarted = new VoteCounterBuffer(ideaRepository, transactionManager, properties);
+        restarted.start();
+        try {
+            assertEquals(2, restarted.pending(7L));
+            restarted.flush();
+            verify(ideaRepository).incrementVotes(7L, 2);
+            assertFalse(Files.exists(tempDir.resolve("counters.spill")));
+        } finally {
+            restarted.stop();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.config.UpvoteProperties;
+import com.gabor.upvote.config.VoteMode;
+import com.gabor.upvote.service.VoteBatchWriter.PendingVote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VoteJournalTest {
+
+    @Mock
+    private VoteBatchWriter writer;
+
+    @TempDir
+    Path tempDir;
+
+    private UpvoteProperties properties;
+    private final List<VoteJournal> journals = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new UpvoteProperties();
+        properties.getVotes().setMode(VoteMode.ASYNC);
+        properties.getVotes().getJournal().setDirectory(tempDir);
+        properties.getVotes().getJournal().setSyncInterval(Duration.ofMillis(1));
+        lenient().when(writer.write(anyList()))
+                .thenAnswer(call -> new VoteBatchWriter.Result(((List<?>) call.getArgument(0)).size(),
+                        new VoteBatchWriter.Rejection[((List<?>) call.getArgument(0)).size()]));
+    }
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(VoteJournal::stop);
+    }
+
+    @Test
+    void shouldReplayUnprocessedVotesAfterRestart() {
+        VoteJournal journal = start();
+        PendingVote first = vote(1L, "journal-u1", "s1");
+        PendingVote second = vote(2L, "journal-u2", null);
+        journal.append(first);
+        journal.append(second);
+        // Leállás feldolgozás nélkül: mintha a folyamat fsync után megszakadt volna
+        journal.stop();
+
+        start();
+
+        List<PendingVote> replayed = replayedVotes();
+        assertEquals(List.of(first, second), replayed);
+        assertEquals(1, segmentCount());
+    }
+
+    @Test
+    void shouldDropTornRecordAtEndOfSegment() throws IOException {
+        VoteJournal journal = start();
+        PendingVote acknowledged = vote(1L, "journal-u3", "s3");
+        journal.append(acknowledged);
+        journal.stop();
+        Path segment = singleSegment();
+        byte[] partial = VoteJournal.encode(vote(2L, "journal-u4", "s4")).array();
+        Files.write(segment, Arrays.copyOf(partial, partial.length / 2), StandardOpenOption.APPEND);
+
+        assertEquals(List.of(acknowledged), VoteJournal.read(segment));
+    }
+
+    @Test
+    void shouldDeleteSealedSegmentOnceAllVotesAreProcessed() {
+        properties.getVotes().getJournal().setSegmentSize(DataSize.ofBytes(1));
+        VoteJournal journal = start();
+
+        // A visszaigazoló fsync után a szegmens megtelt és lezárult, de még van feldolgozatlan szavazata
+        VoteJournal.Position position = journal.append(vote(1L, "journal-u5", "s5"));
+        assertEquals(2, segmentCount());
+
+        journal.release(List.of(position));
+        assertEquals(1, segmentCount());
+    }
+
+    @Test
+    void shouldDeleteProcessedSegmentOnCleanShutdown() {
+        VoteJournal journal = start();
+        VoteJournal.Position position = journal.append(vote(1L, "journal-u6", "s6"));
+        journal.release(List.of(position));
+
+        journal.stop();
+
+        assertEquals(0, segmentCount());
+        verify(writer, never()).write(anyList());
+    }
+
+    @Test
+    void shouldRefuseAppendWhenNotRunning() {
+        VoteJournal journal = new VoteJournal(writer, properties);
+
+        assertThrows(IllegalStateException.class, () -> journal.append(vote(1L, "journal-u7", "s7")));
+    }
+
+    private VoteJournal start() {
+        VoteJournal journal = new VoteJournal(writer, properties);
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PendingVote> replayedVotes() {
+        ArgumentCaptor<List<PendingVote>> batches = ArgumentCaptor.forClass(List.class);
+        verify(writer, atLeastOnce()).write(batches.capture());
+        List<PendingVote> votes = new ArrayList<>();
+        batches.getAllValues().forEach(votes::addAll);
+        return votes;
+    }
+
+    private Path singleSegment() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private long segmentCount() {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static PendingVote vote(Long ideaId, String username, String sessionId) {
+        return new PendingVote(ideaId, username, sessionId, Instant.parse("2026-03-01T10:15:30.123456789Z"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.ReconciliationReport;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.model.VoteRecord;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.IdeaVoteSlotRepository;
+import com.gabor.upvote.repository.VoteRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"upvote.reconciliation.scheduled=false", "upvote.reconciliation.chunk-size=2",
+        "upvote.reconciliation.parallelism=3"})
+class VoteReconcilerTest {
+
+    @Autowired
+    private VoteReconciler voteReconciler;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Autowired
+    private VoteRecordRepository voteRecordRepository;
+
+    @Autowired
+    private IdeaVoteSlotRepository slotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        // Nem tranzakciós teszt (a vizsgálat külön szálakon fut), kézzel takarítunk
+        slotRepository.deleteAll();
+        voteRecordRepository.deleteAll();
+        ideaRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRepairDriftedCountersAcrossChunks() {
+        Long inflated = idea(5, 3);
+        Long lost = idea(1, 2);
+        Long consistent = idea(4, 4);
+        Long pending = ideaRepository.save(withVotes(new Idea("Pending", "Desc"), 2)).getId();
+
+        ReconciliationReport report = voteReconciler.reconcile(true);
+
+        assertEquals(ReconciliationReport.Status.COMPLETED, report.getStatus());
+        assertEquals(3, report.getDriftedIdeas());
+        assertEquals(5, report.getDriftedVotes());
+        assertEquals(3, report.getRepaired());
+        assertTrue(report.getChunks() >= 2);
+        assertEquals(report.getChunks(), report.getChunksDone());
+        assertEquals(3, votesOf(inflated));
+        assertEquals(2, votesOf(lost));
+        assertEquals(4, votesOf(consistent));
+        assertEquals(0, votesOf(pending));
+        assertEquals(0, voteReconciler.reconcile(true).getDriftedIdeas());
+    }
+
+    @Test
+    void shouldOnlyReportWhenRepairIsOff() {
+        Long inflated = idea(5, 3);
+
+        ReconciliationReport report = voteReconciler.reconcile(false);
+
+        assertEquals(1, report.getDriftedIdeas());
+        assertEquals(0, report.getRepaired());
+        assertEquals(5, votesOf(inflated));
+        assertEquals(report.getDriftedIdeas(), voteReconciler.status().orElseThrow().getDriftedIdeas());
+    }
+
+    @Test
+    void shouldCountStripedSlotVotesAsPartOfTheCounter() {
+        Long striped = idea(2, 5);
+        jdbcTemplate.update("INSERT INTO idea_vote_slots (idea_id, slot, votes) VALUES (?, 0, 3)", striped);
+
+        assertEquals(0, voteReconciler.reconcile(true).getDriftedIdeas());
+        assertEquals(2, votesOf(striped));
+    }
+
+    private Long idea(int votes, int records) {
+        Idea idea = withVotes(new Idea("Reconciled idea", "Desc"), votes);
+        idea.setApproved(true);
+        Long ideaId = ideaRepository.save(idea).getId();
+        for (int i = 0; i < records; i++) {
+            voteRecordRepository.save(new VoteRecord(ideaId, "reconcile-" + ideaId + "-" + i, "s" + i));
+        }
+        return ideaId;
+    }
+
+    private static Idea withVotes(Idea idea, int votes) {
+        idea.setVotes(votes);
+        return idea;
+    }
+
+    private int votesOf(Long ideaId) {
+        return jdbcTemplate.queryForObject("SELECT votes FROM ideas WHERE id = ?", Integer.class, ideaId);
+    }
+}
@@ -0,0 +1,62 @@
+package com.gabor.upvote.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoteRecordPartitionsTest {
+
+    private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+    @Test
+    void shouldCreateMissingMonthsAheadButNotBeforeTheLegacyPartition() {
+        // A legacy partíció a novemberig tartó sorokat tartalmazza
+        List<String> partitions = List.of("vote_records_before_p202611", "vote_records_p202612");
+
+        assertEquals(List.of(YearMonth.of(2026, 11), YearMonth.of(2027, 1)),
+                VoteRecordPartitions.toCreate(OCTOBER, 3, partitions));
+    }
+
+    @Test
+    void shouldDetachPartitionsOlderThanRetention() {
+        List<String> partitions = List.of("vote_records_before_p202606", "vote_records_p202606",
+                "vote_records_p202607", "vote_records_p202608", "vote_records_p202610", "unrelated_table");
+
+        assertEquals(List.of("vote_records_before_p202606", "vote_records_p202606", "vote_records_p202607"),
+                VoteRecordPartitions.toDetach(OCTOBER, 2, partitions));
+        assertEquals(List.of(), VoteRecordPartitions.toDetach(OCTOBER, 12, partitions));
+    }
+
+    @Test
+    void shouldCoverOnlyAttachedMonths() {
+        Predicate<Instant> covers = VoteRecordPartitions.covers(
+                List.of("vote_records_before_p202609", "vote_records_p202610", "vote_records_p202611"));
+
+        assertTrue(covers.test(Instant.parse("2019-01-01T00:00:00Z")));
+        assertTrue(covers.test(Instant.parse("2026-11-30T23:59:59Z")));
+        assertFalse(covers.test(Instant.parse("2026-09-15T00:00:00Z")));
+        assertFalse(covers.test(Instant.parse("2026-12-01T00:00:00Z")));
+        // A legacy partíció lecsatolása után a régi dátumok sem férnek be
+        assertFalse(VoteRecordPartitions.covers(List.of("vote_records_p202610"))
+                .test(Instant.parse("2019-01-01T00:00:00Z")));
+    }
+
+    @Test
+    void shouldBoundOnlyAfterLegacyPartitionIsDetached() {
+        assertEquals(Optional.empty(), VoteRecordPartitions.earliestStart(
+                List.of("vote_records_before_p202609", "vote_records_p202610")));
+        assertEquals(Optional.of(Instant.parse("2026-10-01T00:00:00Z")), VoteRecordPartitions.earliestStart(
+                List.of("vote_records_p202611", "vote_records_p202610")));
+    }
+
+    @Test
+    void shouldRenderUtcMonthBoundsAsLiterals() {
+        assertEquals("TIMESTAMPTZ '2026-10-01 00:00:00+00'", VoteRecordPartitions.bound(OCTOBER));
+    }
+}
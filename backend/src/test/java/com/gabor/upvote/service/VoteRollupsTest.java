@@ -0,0 +1,148 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.dto.VoteSeries;
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.model.VoteRecord;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.VoteRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"upvote.rollups.settle=0s", "upvote.rollups.interval=1h"})
+@Transactional
+class VoteRollupsTest {
+
+    @Autowired
+    private VoteRollups rollups;
+
+    @Autowired
+    private IdeaService ideaService;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Autowired
+    private VoteRecordRepository voteRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long ideaId;
+    private Instant hour;
+
+    @BeforeEach
+    void setUp() {
+        Idea idea = new Idea("Charted idea", "Desc");
+        idea.setApproved(true);
+        ideaId = ideaRepository.save(idea).getId();
+        // A perces szeletek csak a megőrzési időn belül készülnek
+        hour = Instant.now().minusSeconds(3 * 3600).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Test
+    void shouldAggregateVotesIntoMinuteHourAndDayBuckets() {
+        record(hour.plusSeconds(10), "rollup-u1");
+        record(hour.plusSeconds(50), "rollup-u2");
+        record(hour.plusSeconds(125), "rollup-u3");
+        record(hour.plusSeconds(3600 + 5), "rollup-u4");
+
+        assertTrue(rollups.aggregate() >= 4);
+
+        VoteSeries minutes = rollups.series(ideaId, "minute", hour, hour.plusSeconds(180));
+        assertEquals(List.of(2L, 0L, 1L), votes(minutes));
+        assertEquals(hour, minutes.getBuckets().get(0).start());
+
+        VoteSeries hours = rollups.series(ideaId, "HOUR", hour, hour.plusSeconds(2 * 3600));
+        assertEquals(List.of(3L, 1L), votes(hours));
+
+        VoteSeries days = rollups.series(ideaId, "day", hour.minusSeconds(86_400), hour.plusSeconds(86_400));
+        assertEquals(4L, votes(days).stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void shouldOnlyAddVotesBeyondTheWatermark() {
+        record(hour.plusSeconds(1), "rollup-u5");
+        rollups.aggregate();
+
+        record(hour.plusSeconds(2), "rollup-u6");
+        assertEquals(1, rollups.aggregate());
+        assertEquals(0, rollups.aggregate());
+
+        assertEquals(List.of(2L), votes(rollups.series(ideaId, "hour", hour, hour.plusSeconds(3600))));
+    }
+
+    @Test
+    void shouldPickUpVotesCommittedAfterTheWatermarkPassedThem() {
+        VoteRecord late = record(hour.plusSeconds(1), "rollup-u7");
+        record(hour.plusSeconds(2), "rollup-u8");
+        // Még nem commitolt sor: az id-je foglalt, de a sor nem látszik
+        voteRecordRepository.delete(late);
+        voteRecordRepository.flush();
+        assertEquals(1, rollups.aggregate());
+
+        jdbcTemplate.update("INSERT INTO vote_records (id, idea_id, username, session_id, voted_at) VALUES (?, ?, ?, ?, ?)",
+                late.getId(), ideaId, "rollup-u7", "s-rollup-u7", Timestamp.from(hour.plusSeconds(1)));
+        assertEquals(1, rollups.aggregate());
+        assertEquals(0, rollups.aggregate());
+
+        assertEquals(List.of(2L), votes(rollups.series(ideaId, "hour", hour, hour.plusSeconds(3600))));
+    }
+
+    @Test
+    void shouldContinueWhenVoteRecordIdsRestartBelowTheWatermark() {
+        rollups.aggregate();
+        jdbcTemplate.update("UPDATE vote_rollup_watermark SET last_id = last_id + 1000000");
+
+        rollups.aggregate();
+        record(hour.plusSeconds(3), "rollup-u9");
+
+        assertEquals(1, rollups.aggregate());
+    }
+
+    @Test
+    void shouldSplitGapsAroundFoundIds() {
+        List<long[]> parts = VoteRollups.remaining(10, 20, List.of(10L, 13L, 14L, 20L));
+
+        assertEquals(List.of(List.of(11L, 12L), List.of(15L, 19L)),
+                parts.stream().map(part -> List.of(part[0], part[1])).toList());
+    }
+
+    @Test
+    void shouldRejectInvalidSeriesRequests() {
+        assertThrows(IllegalArgumentException.class, () -> rollups.series(ideaId, "week", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> rollups.series(ideaId, "minute", hour, hour.plusSeconds(60L * (VoteRollups.MAX_BUCKETS + 1))));
+        assertThrows(IllegalArgumentException.class, () -> rollups.series(ideaId, "hour", hour, hour));
+    }
+
+    @Test
+    void shouldHidePendingIdeaSeriesFromVoters() {
+        Long pending = ideaRepository.save(new Idea("Pending", "Desc")).getId();
+
+        assertThrows(NoSuchElementException.class,
+                () -> ideaService.voteSeries(pending, false, "hour", null, null));
+        assertEquals(48, ideaService.voteSeries(pending, true, "hour", null, null).getBuckets().size());
+    }
+
+    private VoteRecord record(Instant votedAt, String username) {
+        VoteRecord record = new VoteRecord(ideaId, username, "s-" + username);
+        record.setVotedAt(votedAt);
+        return voteRecordRepository.save(record);
+    }
+
+    private static List<Long> votes(VoteSeries series) {
+        return series.getBuckets().stream().map(VoteSeries.Bucket::votes).toList();
+    }
+}
@@ -0,0 +1,106 @@
+package com.gabor.upvote.service;
+
+import com.gabor.upvote.model.Idea;
+import com.gabor.upvote.repository.IdeaRepository;
+import com.gabor.upvote.repository.IdeaVoteSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"upvote.votes.mode=striped", "upvote.votes.striped.fold=false",
+        "upvote.votes.striped.slots=4"})
+@Transactional
+class VoteSlotCounterTest {
+
+    @Autowired
+    private IdeaService ideaService;
+
+    @Autowired
+    private VoteSlotCounter voteSlotCounter;
+
+    @Autowired
+    private IdeaRepository ideaRepository;
+
+    @Autowired
+    private IdeaVoteSlotRepository slotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long ideaId;
+
+    @BeforeEach
+    void setUp() {
+        Idea idea = new Idea("Viral idea", "Desc");
+        idea.setApproved(true);
+        idea.setVotes(5);
+        ideaId = ideaRepository.save(idea).getId();
+    }
+
+    @Test
+    void shouldCountVotesInSlotsAndReportExactTotal() {
+        Idea last = null;
+        for (int i = 0; i < 20; i++) {
+            last = ideaService.vote(ideaId, "slot-voter" + i, "s" + i);
+        }
+
+        assertEquals(25, last.getVotes());
+        assertEquals(25, ideaService.getIdea(ideaId, false).getVotes());
+        // Az ideas sort a szavazás nem írja, és a slotok száma korlátos
+        assertEquals(5, storedVotes());
+        assertEquals(20, voteSlotCounter.pending(ideaId));
+        assertTrue(slotRepository.count() <= 4);
+    }
+
+    @Test
+    void shouldFoldSlotsIntoIdeaVotes() {
+        for (int i = 0; i < 7; i++) {
+            ideaService.vote(ideaId, "fold-voter" + i, "s" + i);
+        }
+        long folds = voteSlotCounter.foldCount();
+
+        assertEquals(7, voteSlotCounter.fold());
+
+        assertEquals(12, storedVotes());
+        assertEquals(0, voteSlotCounter.pending(ideaId));
+        assertEquals(0, slotRepository.count());
+        assertEquals(folds + 1, voteSlotCounter.foldCount());
+        assertEquals(0, voteSlotCounter.fold());
+    }
+
+    @Test
+    void shouldNotDoubleCountWhenFoldsInterleave() {
+        for (int i = 0; i < 7; i++) {
+            ideaService.vote(ideaId, "race-voter" + i, "s" + i);
+        }
+        // A másik node még a fold előtt olvasta ki a listát
+        List<Long> stale = slotRepository.findUnfoldedIdeaIds();
+
+        assertEquals(7, voteSlotCounter.fold());
+        ideaService.vote(ideaId, "race-late", "s-late");
+
+        assertEquals(1, voteSlotCounter.fold(stale));
+        assertEquals(0, voteSlotCounter.fold(stale));
+        assertEquals(13, storedVotes());
+        assertEquals(0, voteSlotCounter.pending(ideaId));
+    }
+
+    @Test
+    void shouldRejectDuplicateVoteWithoutTouchingSlots() {
+        ideaService.vote(ideaId, "slot-dup", "s1");
+
+        assertThrows(IllegalStateException.class, () -> ideaService.vote(ideaId, "slot-dup", "s2"));
+        assertEquals(1, voteSlotCounter.pending(ideaId));
+    }
+
+    private int storedVotes() {
+        return jdbcTemplate.queryForObject("SELECT votes FROM ideas WHERE id = ?", Integer.class, ideaId);
+    }
+}
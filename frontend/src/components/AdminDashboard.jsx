@@ -6,6 +6,7 @@ export default function AdminDashboard() {
     const [approvedIdeas, setApprovedIdeas] = useState([]);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState("");
+    const [descriptions, setDescriptions] = useState({});
 
     // Ötletek betöltése
     const loadIdeas = async () => {
@@ -29,6 +30,20 @@ export default function AdminDashboard() {
         loadIdeas();
     }, []);
 
+    // A leírás csak kérésre töltődik be, a lista csak címet és szavazatszámot hoz
+    const toggleDescription = async (ideaId) => {
+        if (descriptions[ideaId] !== undefined) {
+            setDescriptions(({ [ideaId]: _, ...rest }) => rest);
+            return;
+        }
+        try {
+            const response = await ideaAPI.getDetails(ideaId);
+            setDescriptions((current) => ({ ...current, [ideaId]: response.data.description || "" }));
+        } catch (err) {
+            alert("Nem sikerült betölteni a leírást.");
+        }
+    };
+
     // Jóváhagyás
     const handleApprove = async (ideaId) => {
         try {
@@ -40,6 +55,31 @@ export default function AdminDashboard() {
         }
     };
 
+    // Az összes függő ötlet egyszerre
+    const handleApproveAll = async () => {
+        if (!window.confirm(`Biztosan engedélyezed mind a(z) ${pendingIdeas.length} ötletet?`)) return;
+
+        try {
+            const response = await ideaAPI.approveBatch(pendingIdeas.map((idea) => idea.id));
+            alert(`${response.data.processed.length} ötlet jóváhagyva!`);
+            loadIdeas();
+        } catch (err) {
+            alert("Hiba történt a jóváhagyás során.");
+        }
+    };
+
+    const handleDeleteAll = async () => {
+        if (!window.confirm(`Biztosan törlöd mind a(z) ${pendingIdeas.length} ötletet?`)) return;
+
+        try {
+            const response = await ideaAPI.rejectBatch(pendingIdeas.map((idea) => idea.id));
+            alert(`${response.data.processed.length} ötlet törölve!`);
+            loadIdeas();
+        } catch (err) {
+            alert("Hiba történt a törlés során.");
+        }
+    };
+
     // Törlés
     const handleDelete = async (ideaId) => {
         if (!window.confirm("Biztosan törlöd ezt az ötletet?")) return;
@@ -91,9 +131,27 @@ export default function AdminDashboard() {
 
             {/* Engedélyre váró ötletek */}
             <section className="mb-8">
-                <h2 className="text-2xl font-semibold mb-4 text-yellow-700">
-                    Engedélyre váró ötletek ({pendingIdeas.length})
-                </h2>
+                <div className="flex justify-between items-center mb-4">
+                    <h2 className="text-2xl font-semibold text-yellow-700">
+                        Engedélyre váró ötletek ({pendingIdeas.length})
+                    </h2>
+                    {pendingIdeas.length > 1 && (
+                        <div className="flex gap-2">
+                            <button
+                                onClick={handleApproveAll}
+                                className="bg-green-500 text-white px-3 py-1 rounded hover:bg-green-600"
+                            >
+                                ✅ Összes engedélyezése
+                            </button>
+                            <button
+                                onClick={handleDeleteAll}
+                                className="bg-red-500 text-white px-3 py-1 rounded hover:bg-red-600"
+                            >
+                                ❌ Összes törlése
+                            </button>
+                        </div>
+                    )}
+                </div>
 
                 {pendingIdeas.length === 0 ? (
                     <p className="text-gray-600">Nincs engedélyre váró ötlet.</p>
@@ -106,7 +164,15 @@ export default function AdminDashboard() {
                             >
                                 <div>
                                     <h3 className="text-lg font-bold mb-2">{idea.title}</h3>
-                                    <p className="text-gray-700 mb-2">{idea.description}</p>
+                                    {descriptions[idea.id] !== undefined && (
+                                        <p className="text-gray-700 mb-2">{descriptions[idea.id]}</p>
+                                    )}
+                                    <button
+                                        onClick={() => toggleDescription(idea.id)}
+                                        className="text-sm text-blue-600 hover:underline mb-2"
+                                    >
+                                        {descriptions[idea.id] !== undefined ? "Leírás elrejtése" : "Leírás"}
+                                    </button>
                                     <p className="text-sm text-gray-500">
                                         Létrehozva: {new Date(idea.createdAt).toLocaleString('hu-HU')}
                                     </p>
@@ -154,7 +220,15 @@ export default function AdminDashboard() {
                                     >
                                         <div>
                                             <h3 className="text-lg font-bold mb-2">{idea.title}</h3>
-                                            <p className="text-gray-700 mb-3">{idea.description}</p>
+                                            {descriptions[idea.id] !== undefined && (
+                                                <p className="text-gray-700 mb-3">{descriptions[idea.id]}</p>
+                                            )}
+                                            <button
+                                                onClick={() => toggleDescription(idea.id)}
+                                                className="text-sm text-blue-600 hover:underline mb-2"
+                                            >
+                                                {descriptions[idea.id] !== undefined ? "Leírás elrejtése" : "Leírás"}
+                                            </button>
                                             <p className="text-sm text-gray-500 mb-2">
                                                 Létrehozva: {new Date(idea.createdAt).toLocaleString('hu-HU')}
                                             </p>
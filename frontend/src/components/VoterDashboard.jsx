@@ -1,6 +1,10 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import { ideaAPI } from "../services/api";
 
+// Ugyanaz a sorrend, mint a backend listájában: szavazat, majd beküldés ideje szerint csökkenő
+const byVotes = (a, b) =>
+    b.votes - a.votes || new Date(b.createdAt) - new Date(a.createdAt);
+
 export default function VoterDashboard() {
     const [ideas, setIdeas] = useState([]);
     const [loading, setLoading] = useState(true);
@@ -8,6 +12,8 @@ export default function VoterDashboard() {
     const [votingFor, setVotingFor] = useState(null);
     const [hasVoted, setHasVoted] = useState(false);  // ⬅️ ÚJ STATE
     const [votedIdeaTitle, setVotedIdeaTitle] = useState("");  // ⬅️ ÚJ STATE
+    const [descriptions, setDescriptions] = useState({});
+    const knownIds = useRef(new Set());
 
     const loadIdeas = async () => {
         setLoading(true);
@@ -22,10 +28,71 @@ export default function VoterDashboard() {
         }
     };
 
+    // Háttérben frissít, a "Betöltés..." képernyő nélkül
+    const refreshIdeas = async () => {
+        try {
+            const response = await ideaAPI.getApproved();
+            setIdeas(response.data);
+        } catch (err) {
+            // a következő élő frissítés vagy a kézi frissítés újrapróbálja
+        }
+    };
+
+    useEffect(() => {
+        knownIds.current = new Set(ideas.map((idea) => idea.id));
+    }, [ideas]);
+
     useEffect(() => {
         loadIdeas();
+
+        // Élő szavazatszámok: tick-enként összevont változások, újratöltés helyett
+        const unsubscribe = ideaAPI.subscribe((updates) => {
+            // Újonnan jóváhagyott ötlet: a címe kell, ezért újratöltjük a listát
+            if (updates.some((update) => !update.removed && !knownIds.current.has(update.id))) {
+                refreshIdeas();
+                return;
+            }
+            setIdeas((current) => {
+                const byId = new Map(current.map((idea) => [idea.id, idea]));
+                updates.forEach((update) => {
+                    if (update.removed) {
+                        byId.delete(update.id);
+                    } else if (byId.has(update.id)) {
+                        const idea = byId.get(update.id);
+                        byId.set(update.id, { ...idea, votes: Math.max(idea.votes, update.votes) });
+                    }
+                });
+                return [...byId.values()].sort(byVotes);
+            });
+        });
+        return unsubscribe;
     }, []);
 
+    // A leírás csak kérésre töltődik be, a lista csak címet és szavazatszámot hoz
+    const toggleDescription = async (ideaId) => {
+        if (descriptions[ideaId] !== undefined) {
+            setDescriptions(({ [ideaId]: _, ...rest }) => rest);
+            return;
+        }
+        try {
+            const response = await ideaAPI.getDetails(ideaId);
+            setDescriptions((current) => ({ ...current, [ideaId]: response.data.description || "" }));
+        } catch (err) {
+            alert("Nem sikerült betölteni a leírást.");
+        }
+    };
+
+    // Addig kérdezzük a ticketet, amíg a szavazat ki nem került a sorból
+    const waitForVote = async (ticket) => {
+        for (;;) {
+            const { data } = await ideaAPI.voteStatus(ticket);
+            if (data.status !== "QUEUED") {
+                return data;
+            }
+            await new Promise(resolve => setTimeout(resolve, 250));
+        }
+    };
+
     const handleVote = async (ideaId, ideaTitle) => {
         if (hasVoted) {
             alert(`Már szavaztál! (${votedIdeaTitle})`);
@@ -36,10 +103,24 @@ export default function VoterDashboard() {
         try {
             const response = await ideaAPI.vote(ideaId);
 
-            // Frissítjük a szavazatot a listában
-            setIdeas(ideas.map(idea =>
-                idea.id === ideaId ? response.data : idea
-            ));
+            if (response.status === 202) {
+                // Aszinkron mód: a szám a stream/changes frissítéssel érkezik
+                const ticket = await waitForVote(response.data.ticket);
+                if (ticket.status !== "ACCEPTED") {
+                    if (ticket.reason === "ALREADY_VOTED") {
+                        setHasVoted(true);
+                        alert("Már leadtad a szavazatodat!");
+                    } else {
+                        alert("A szavazatot nem sikerült rögzíteni.");
+                    }
+                    return;
+                }
+            } else {
+                // Frissítjük a szavazatot a listában
+                setIdeas(ideas.map(idea =>
+                    idea.id === ideaId ? response.data : idea
+                ));
+            }
 
             // Beállítjuk, hogy már szavazott
             setHasVoted(true);
@@ -61,6 +142,8 @@ export default function VoterDashboard() {
                 alert(errorMsg);
             } else if (err.response?.status === 404) {
                 alert("Az ötlet nem található!");
+            } else if (err.response?.status === 503) {
+                alert("Most túl sok szavazat érkezik, próbáld újra pár másodperc múlva!");
             } else {
                 alert("Hiba történt a szavazás során.");
             }
@@ -129,7 +212,15 @@ export default function VoterDashboard() {
                     >
                         <div>
                             <h3 className="text-lg font-semibold mb-2">{idea.title}</h3>
-                            <p className="text-gray-600 mb-2">{idea.description}</p>
+                            {descriptions[idea.id] !== undefined && (
+                                <p className="text-gray-600 mb-2">{descriptions[idea.id]}</p>
+                            )}
+                            <button
+                                onClick={() => toggleDescription(idea.id)}
+                                className="text-sm text-blue-600 hover:underline mb-2"
+                            >
+                                {descriptions[idea.id] !== undefined ? "Leírás elrejtése" : "Leírás"}
+                            </button>
                             <p className="text-sm text-gray-500">
                                 Létrehozva: {new Date(idea.createdAt).toLocaleString('hu-HU')}
                             </p>
@@ -57,6 +57,9 @@ export const ideaAPI = {
     // Jóváhagyott ötletek (user és admin)
     getApproved: () => api.get('/api/ideas'),
 
+    // Egy ötlet részletei (a listák leírás nélkül jönnek)
+    getDetails: (ideaId) => api.get(`/api/ideas/${ideaId}`),
+
     // Új ötlet beküldése
     submit: (title, description) =>
         api.post('/api/ideas', { title, description }),
@@ -64,6 +67,9 @@ export const ideaAPI = {
     // Szavazás
     vote: (ideaId) => api.post(`/api/ideas/${ideaId}/vote`),
 
+    // Aszinkron szavazás (202) ticketjének állapota
+    voteStatus: (ticket) => api.get(`/api/ideas/votes/${ticket}`),
+
     // Admin: pending ötletek
     getPending: () => api.get('/api/ideas/pending'),
 
@@ -72,6 +78,68 @@ export const ideaAPI = {
 
     // Admin: törlés
     delete: (ideaId) => api.delete(`/api/ideas/${ideaId}`),
+
+    // Admin: kötegelt jóváhagyás / törlés (egy tranzakció)
+    approveBatch: (ideaIds) => api.post('/api/ideas/batch/approve', { ids: ideaIds }),
+    rejectBatch: (ideaIds) => api.post('/api/ideas/batch/reject', { ids: ideaIds }),
+
+    // Élő szavazatszámok (SSE). Az EventSource nem küld Authorization fejlécet,
+    // ezért fetch stream-mel olvassuk. Visszatérés: leiratkozó függvény.
+    subscribe: (onUpdates) => {
+        const controller = new AbortController();
+        let retryTimer = null;
+
+        const connect = async () => {
+            try {
+                const auth = localStorage.getItem('auth');
+                const response = await fetch(`${API_BASE_URL}/api/ideas/stream`, {
+                    headers: {
+                        Accept: 'text/event-stream',
+                        ...(auth ? { Authorization: `Basic ${auth}` } : {}),
+                    },
+                    credentials: 'include',
+                    signal: controller.signal,
+                });
+                if (!response.ok || !response.body) {
+                    throw new Error(`Stream HTTP ${response.status}`);
+                }
+
+                const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+                let buffer = '';
+                for (;;) {
+                    const { value, done } = await reader.read();
+                    if (done) break;
+                    buffer += value;
+                    // Az események üres sorral záródnak
+                    let end;
+                    while ((end = buffer.indexOf('\n\n')) >= 0) {
+                        const block = buffer.slice(0, end);
+                        buffer = buffer.slice(end + 2);
+                        const data = block
+                            .split('\n')
+                            .filter((line) => line.startsWith('data:'))
+                            .map((line) => line.slice(5))
+                            .join('\n');
+                        if (data) {
+                            onUpdates(JSON.parse(data));
+                        }
+                    }
+                }
+            } catch (err) {
+                if (controller.signal.aborted) return;
+            }
+            // Szerver oldali timeout vagy hálózati hiba: újracsatlakozás
+            if (!controller.signal.aborted) {
+                retryTimer = setTimeout(connect, 3000);
+            }
+        };
+
+        connect();
+        return () => {
+            controller.abort();
+            clearTimeout(retryTimer);
+        };
+    },
 };
 
 export default api;
\ No newline at end of file